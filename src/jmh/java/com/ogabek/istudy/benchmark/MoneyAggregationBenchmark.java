@@ -0,0 +1,82 @@
+package com.ogabek.istudy.benchmark;
+
+import com.ogabek.istudy.entity.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Summing payment amounts as BigDecimal vs Money (long tiyin); gc.alloc.rate.norm shows the allocation side
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyAggregationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int payments;
+
+    private BigDecimal[] decimalAmounts;
+    private long[] minorAmounts;
+    private Money[] moneyAmounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalAmounts = new BigDecimal[payments];
+        minorAmounts = new long[payments];
+        moneyAmounts = new Money[payments];
+        for (int i = 0; i < payments; i++) {
+            long minor = (50_000L + random.nextInt(950_000)) * 100 + random.nextInt(100);
+            minorAmounts[i] = minor;
+            decimalAmounts[i] = BigDecimal.valueOf(minor, 2);
+            moneyAmounts[i] = new Money(minor);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalSum() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            sum = sum.add(amount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalStreamSum() {
+        return Arrays.stream(decimalAmounts).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public long minorUnitSum() {
+        long sum = 0;
+        for (long amount : minorAmounts) {
+            sum = Math.addExact(sum, amount);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Money moneySum() {
+        Money sum = Money.ZERO;
+        for (Money amount : moneyAmounts) {
+            sum = sum.plus(amount);
+        }
+        return sum;
+    }
+
+    // The service path: amounts still arrive from JPA as BigDecimal and are converted per row
+    @Benchmark
+    public Money moneyFromDecimalSum() {
+        Money sum = Money.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            sum = sum.plus(Money.of(amount));
+        }
+        return sum;
+    }
+}
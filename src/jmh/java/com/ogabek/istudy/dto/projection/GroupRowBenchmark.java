@@ -0,0 +1,43 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.GroupDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Days-of-week parsing of the group list (comma separated column -> List<String>)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupRowBenchmark {
+
+    @Param({"MONDAY,WEDNESDAY,FRIDAY", "MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY", ""})
+    private String daysOfWeek;
+
+    private GroupRow row;
+
+    @Setup
+    public void setUp() {
+        row = new GroupRow(1L, "Ingliz tili A1", 2L, "Ingliz tili", BigDecimal.valueOf(400_000), 3L, "Ali", "Valiyev",
+                1L, "Filial", "14:00", "15:30", daysOfWeek, LocalDateTime.now());
+    }
+
+    @Benchmark
+    public List<String> splitDays() {
+        return Arrays.asList(daysOfWeek.split(","));
+    }
+
+    @Benchmark
+    public void toDto(Blackhole blackhole) {
+        GroupDto dto = row.toDto();
+        blackhole.consume(dto.getDaysOfWeek());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ogabek.istudy.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Per-request JWT work done by the auth filter: signature validation, then subject extraction
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtUtils = new JwtUtils();
+        set("jwtSecret", "mySecretKey123456789012345678901234567890");
+        set("jwtExpirationMs", 86_400_000);
+        set("jwtRefreshExpirationMs", 604_800_000);
+        token = jwtUtils.generateJwtToken("benchmark-admin");
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String validateAndReadSubject() {
+        return jwtUtils.validateJwtToken(token) ? jwtUtils.getUserNameFromJwtToken(token) : null;
+    }
+
+    // The fields are injected with @Value in the application
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = JwtUtils.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtUtils, value);
+    }
+}
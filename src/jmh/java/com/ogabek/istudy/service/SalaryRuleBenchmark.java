@@ -0,0 +1,47 @@
+package com.ogabek.istudy.service;
+
+import com.ogabek.istudy.entity.SalaryType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Salary rule evaluation for a branch of 200 teachers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalaryRuleBenchmark {
+    private static final int TEACHERS = 200;
+
+    @Param({"FIXED", "PERCENTAGE", "MIXED"})
+    private SalaryType salaryType;
+
+    private BigDecimal[] baseSalaries;
+    private BigDecimal[] percentages;
+    private BigDecimal[] studentPayments;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        baseSalaries = new BigDecimal[TEACHERS];
+        percentages = new BigDecimal[TEACHERS];
+        studentPayments = new BigDecimal[TEACHERS];
+        for (int i = 0; i < TEACHERS; i++) {
+            baseSalaries[i] = BigDecimal.valueOf(2_000_000 + random.nextInt(3_000_000));
+            percentages[i] = BigDecimal.valueOf(20 + random.nextInt(30)).add(new BigDecimal("0.50"));
+            studentPayments[i] = BigDecimal.valueOf(random.nextInt(40) * 350_000L);
+        }
+    }
+
+    @Benchmark
+    public void evaluateBranch(Blackhole blackhole) {
+        for (int i = 0; i < TEACHERS; i++) {
+            blackhole.consume(TeacherSalaryService.salaryFor(salaryType, baseSalaries[i], percentages[i], studentPayments[i]));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ogabek.istudy.service;
+
+import com.ogabek.istudy.dto.projection.StudentGroupRow;
+import com.ogabek.istudy.dto.projection.StudentPaymentSummary;
+import com.ogabek.istudy.dto.projection.StudentRow;
+import com.ogabek.istudy.dto.response.StudentDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Student list assembly of one branch from its rows (the work done after the four queries)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentAssemblyBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int students;
+
+    private List<StudentRow> studentRows;
+    private List<StudentGroupRow> groupRows;
+    private List<StudentPaymentSummary> paymentSummaries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        int groups = Math.max(10, students / 15);
+
+        studentRows = new ArrayList<>(students);
+        groupRows = new ArrayList<>();
+        paymentSummaries = new ArrayList<>();
+        for (long id = 1; id <= students; id++) {
+            studentRows.add(new StudentRow(id, "Ism" + id, "Familiya" + id, "+99890" + id, "+99891" + id,
+                    1L, "Filial", now.minusDays(random.nextInt(365))));
+
+            int memberships = 1 + random.nextInt(3);
+            for (int m = 0; m < memberships; m++) {
+                long groupId = 1 + random.nextInt(groups);
+                groupRows.add(new StudentGroupRow(id, groupId, "Guruh " + groupId, groupId % 20, "Kurs " + groupId % 20,
+                        BigDecimal.valueOf(300_000 + (groupId % 5) * 50_000), "O'qituvchi", "Familiya"));
+            }
+
+            // About 70% of students paid something this month
+            if (random.nextInt(10) < 7) {
+                paymentSummaries.add(new StudentPaymentSummary(id, BigDecimal.valueOf(100_000L * (1 + random.nextInt(8))),
+                        1L + random.nextInt(2), now.minusDays(random.nextInt(28))));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<StudentDto> assembleBranch() {
+        return StudentService.assembleStudents(studentRows, groupRows, paymentSummaries);
+    }
+}
@@ -2,8 +2,10 @@ package com.ogabek.istudy;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class IStudyApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,585 @@
+package com.ogabek.istudy.analytics;
+
+import com.ogabek.istudy.dto.response.AnalyticsBreakdownDto;
+import com.ogabek.istudy.dto.response.AnalyticsSnapshotDto;
+import com.ogabek.istudy.dto.response.CohortRetentionDto;
+import com.ogabek.istudy.dto.response.PaymentDto;
+import com.ogabek.istudy.entity.Money;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.service.LedgerVersionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Branch payment analytics (collection by course, teacher and month, cohort retention) answered from
+ * an in-memory {@link PaymentColumns} snapshot instead of new SQL per question.
+ * A branch is loaded on first use in keyset-paginated chunks, keeping the newest payment months that
+ * fit in {@code app.analytics.max-rows-per-branch}. All branches together stay within
+ * {@code app.analytics.max-total-bytes}: the least recently read branches are evicted to make room,
+ * and a rebuild counts both the copy being loaded and the one still served. Months before a branch's
+ * window are rejected rather than reported as empty. Payment writes of this instance are applied from
+ * the DTOs of their committed {@link BranchEvent}s, without reading the rows again; bulk writes
+ * (ledger epoch change) and writes of other
+ * instances are picked up by the periodic rebuild. Rows and estimated bytes per branch are exported
+ * as gauges and listed at /api/admin/diagnostics/analytics.
+ */
+@Service
+@Slf4j
+public class PaymentAnalyticsService {
+    private static final String CHUNK_SQL = """
+            SELECT id, student_id, group_id, course_id, payment_year, payment_month, amount, created_at
+            FROM payments
+            WHERE branch_id = ? AND payment_year * 12 + payment_month - 1 >= ? AND id > ?
+            ORDER BY id
+            LIMIT ?""";
+
+    // Rows per payment month, newest first, to fit the window into the row limit
+    private static final String PERIOD_COUNTS_SQL = """
+            SELECT payment_year * 12 + payment_month - 1 AS period, COUNT(*)
+            FROM payments
+            WHERE branch_id = ? AND payment_year * 12 + payment_month - 1 >= ?
+            GROUP BY period
+            ORDER BY period DESC""";
+
+    // Expected fees come from current enrollments, as in the unpaid-student and salary calculations
+    private static final String GROUPS_SQL = """
+            SELECT g.id, g.name, c.id AS course_id, c.name AS course_name, c.price,
+                   t.id AS teacher_id, t.first_name, t.last_name, COUNT(gs.student_id) AS students
+            FROM groups g
+            JOIN courses c ON c.id = g.course_id
+            LEFT JOIN teachers t ON t.id = g.teacher_id
+            LEFT JOIN group_students gs ON gs.group_id = g.id
+            WHERE g.branch_id = ?
+            GROUP BY g.id, g.name, c.id, c.name, c.price, t.id, t.first_name, t.last_name""";
+
+    private final ConcurrentMap<Long, BranchSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerVersionService ledgerVersionService;
+    private final MultiGauge rowsGauge;
+    private final MultiGauge bytesGauge;
+    private final int maxRowsPerBranch;
+    private final long maxTotalBytes;
+    private final int retentionMonths;
+    private final int chunkSize;
+    // Bytes of snapshots being loaded, on top of the loaded ones
+    private final Object budgetLock = new Object();
+    private long reservedBytes;
+
+    public PaymentAnalyticsService(JdbcTemplate jdbcTemplate, LedgerVersionService ledgerVersionService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.analytics.max-rows-per-branch:2000000}") int maxRowsPerBranch,
+                                   @Value("${app.analytics.max-total-bytes:268435456}") long maxTotalBytes,
+                                   @Value("${app.analytics.retention-months:60}") int retentionMonths,
+                                   @Value("${app.analytics.load-chunk-size:10000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerVersionService = ledgerVersionService;
+        this.maxRowsPerBranch = maxRowsPerBranch;
+        this.maxTotalBytes = maxTotalBytes;
+        this.retentionMonths = retentionMonths;
+        this.chunkSize = chunkSize;
+        this.rowsGauge = MultiGauge.builder("istudy.analytics.snapshot.rows")
+                .description("Payments held in the in-memory analytics snapshot")
+                .register(meterRegistry);
+        this.bytesGauge = MultiGauge.builder("istudy.analytics.snapshot.bytes")
+                .description("Estimated heap used by the analytics snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public List<AnalyticsBreakdownDto> collectionByCourse(Long branchId, YearMonth period) {
+        List<GroupInfo> groups = loadGroups(branchId);
+        Map<Long, Money> expected = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (GroupInfo group : groups) {
+            expected.merge(group.courseId, group.expected(), Money::plus);
+            names.put(group.courseId, group.courseName);
+        }
+
+        int p = PaymentColumns.period(period.getYear(), period.getMonthValue());
+        return read(branchId, p, columns -> {
+            PaymentColumns.Aggregate aggregate = columns.aggregate(PaymentColumns.Dimension.COURSE, p, p);
+            Map<Long, Collected> collected = new HashMap<>();
+            for (int ordinal = 0; ordinal < aggregate.sums().length; ordinal++) {
+                if (aggregate.counts()[ordinal] > 0) {
+                    collected.put(columns.courseId(ordinal), new Collected(aggregate.sums()[ordinal], aggregate.counts()[ordinal]));
+                }
+            }
+            return breakdown(collected, expected, names);
+        });
+    }
+
+    public List<AnalyticsBreakdownDto> collectionByTeacher(Long branchId, YearMonth period) {
+        List<GroupInfo> groups = loadGroups(branchId);
+        Map<Long, GroupInfo> groupsById = new HashMap<>();
+        Map<Long, Money> expected = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (GroupInfo group : groups) {
+            groupsById.put(group.id, group);
+            if (group.teacherId != null) {
+                expected.merge(group.teacherId, group.expected(), Money::plus);
+                names.put(group.teacherId, group.teacherName);
+            }
+        }
+
+        int p = PaymentColumns.period(period.getYear(), period.getMonthValue());
+        return read(branchId, p, columns -> {
+            PaymentColumns.Aggregate aggregate = columns.aggregate(PaymentColumns.Dimension.GROUP, p, p);
+            Map<Long, Collected> collected = new HashMap<>();
+            for (int ordinal = 0; ordinal < aggregate.sums().length; ordinal++) {
+                GroupInfo group = groupsById.get(columns.groupId(ordinal));
+                if (aggregate.counts()[ordinal] > 0 && group != null && group.teacherId != null) {
+                    collected.merge(group.teacherId, new Collected(aggregate.sums()[ordinal], aggregate.counts()[ordinal]),
+                            Collected::plus);
+                }
+            }
+            return breakdown(collected, expected, names);
+        });
+    }
+
+    // Collected per payment month; id is yyyyMM, name is "yyyy-MM"
+    public List<AnalyticsBreakdownDto> collectionByMonth(Long branchId, YearMonth from, YearMonth to) {
+        int fromPeriod = PaymentColumns.period(from.getYear(), from.getMonthValue());
+        int toPeriod = PaymentColumns.period(to.getYear(), to.getMonthValue());
+        validateRange(fromPeriod, toPeriod);
+
+        return read(branchId, fromPeriod, columns -> {
+            PaymentColumns.Aggregate aggregate = columns.aggregate(PaymentColumns.Dimension.PERIOD, fromPeriod, toPeriod);
+            List<AnalyticsBreakdownDto> result = new ArrayList<>();
+            for (int offset = 0; offset < aggregate.sums().length; offset++) {
+                YearMonth month = from.plusMonths(offset);
+                result.add(new AnalyticsBreakdownDto((long) month.getYear() * 100 + month.getMonthValue(), month.toString(),
+                        new Money(aggregate.sums()[offset]).toBigDecimal(), aggregate.counts()[offset], null, null));
+            }
+            return result;
+        });
+    }
+
+    // Payments received between the dates (inclusive) by creation time
+    public AnalyticsBreakdownDto receivedBetween(Long branchId, LocalDate startDate, LocalDate endDate) {
+        ZoneId zone = ZoneId.systemDefault();
+        long from = startDate.atStartOfDay(zone).toEpochSecond();
+        long to = endDate.plusDays(1).atStartOfDay(zone).toEpochSecond();
+
+        return read(branchId, columns -> {
+            PaymentColumns.Aggregate aggregate = columns.receivedBetween(from, to);
+            return new AnalyticsBreakdownDto(branchId, startDate + ".." + endDate,
+                    new Money(aggregate.sums()[0]).toBigDecimal(), aggregate.counts()[0], null, null);
+        });
+    }
+
+    // Cohorts by first payment month inside the snapshot window
+    public List<CohortRetentionDto> cohortRetention(Long branchId, YearMonth from, YearMonth to) {
+        int fromPeriod = PaymentColumns.period(from.getYear(), from.getMonthValue());
+        int toPeriod = PaymentColumns.period(to.getYear(), to.getMonthValue());
+        validateRange(fromPeriod, toPeriod);
+
+        return read(branchId, fromPeriod, columns -> {
+            int[][] retained = columns.retention(fromPeriod, toPeriod);
+            List<CohortRetentionDto> result = new ArrayList<>(retained.length);
+            for (int c = 0; c < retained.length; c++) {
+                List<Integer> row = new ArrayList<>(retained[c].length);
+                for (int count : retained[c]) {
+                    row.add(count);
+                }
+                result.add(new CohortRetentionDto(from.plusMonths(c).toString(), retained[c][0], row));
+            }
+            return result;
+        });
+    }
+
+    public List<AnalyticsSnapshotDto> snapshotStats() {
+        List<AnalyticsSnapshotDto> stats = new ArrayList<>();
+        snapshots.forEach((branchId, snapshot) -> {
+            snapshot.lock.readLock().lock();
+            try {
+                if (snapshot.columns != null) {
+                    stats.add(new AnalyticsSnapshotDto(branchId, snapshot.columns.size(), snapshot.columns.estimatedBytes(),
+                            periodToString(snapshot.windowStart), snapshot.truncated, snapshot.loadedAt));
+                }
+            } finally {
+                snapshot.lock.readLock().unlock();
+            }
+        });
+        return stats;
+    }
+
+    // Runs after the payment write commits; the event DTO carries every column the snapshot holds
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBranchEvent(BranchEvent event) {
+        BranchSnapshot snapshot = snapshots.get(event.branchId());
+        if (snapshot == null || event.entityId() == null) {
+            return;
+        }
+        switch (event.type()) {
+            case PAYMENT_CREATED, PAYMENT_UPDATED -> {
+                if (event.data() instanceof PaymentDto payment) {
+                    applyChange(snapshot, event.entityId(), PaymentRow.of(payment, event.occurredAt()));
+                }
+            }
+            case PAYMENT_DELETED -> applyChange(snapshot, event.entityId(), null);
+            default -> {
+            }
+        }
+    }
+
+    // Catches writes of other instances and any missed event; queries keep using the old snapshot meanwhile
+    @Scheduled(initialDelayString = "${app.analytics.rebuild-ms:1800000}", fixedDelayString = "${app.analytics.rebuild-ms:1800000}")
+    public void rebuildLoadedBranches() {
+        for (Map.Entry<Long, BranchSnapshot> entry : snapshots.entrySet()) {
+            try {
+                rebuild(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Analytics snapshot rebuild failed for branch {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        updateGauges();
+    }
+
+    // Received-by-date spans payment months, so it is not checked against the window
+    private <T> T read(Long branchId, Function<PaymentColumns, T> query) {
+        return read(branchId, Integer.MAX_VALUE, query);
+    }
+
+    // Payments of months before fromPeriod's window are not held; answering would report them as zero
+    private <T> T read(Long branchId, int fromPeriod, Function<PaymentColumns, T> query) {
+        BranchSnapshot snapshot = snapshots.computeIfAbsent(branchId, id -> new BranchSnapshot());
+        snapshot.lastReadAt = System.nanoTime();
+        if (needsRebuild(branchId, snapshot)) {
+            synchronized (snapshot) {
+                // Concurrent first queries of a branch load it once
+                if (needsRebuild(branchId, snapshot)) {
+                    rebuild(branchId, snapshot);
+                }
+            }
+            updateGauges();
+        }
+
+        snapshot.lock.readLock().lock();
+        try {
+            if (fromPeriod < snapshot.windowStart) {
+                throw new RuntimeException("Tahlil ma'lumotlari " + periodToString(snapshot.windowStart)
+                        + " oyidan boshlab mavjud");
+            }
+            return query.apply(snapshot.columns);
+        } finally {
+            snapshot.lock.readLock().unlock();
+        }
+    }
+
+    private boolean needsRebuild(Long branchId, BranchSnapshot snapshot) {
+        return snapshot.columns == null || snapshot.stale || snapshot.epoch != ledgerVersionService.branchEpoch(branchId);
+    }
+
+    private void rebuild(Long branchId, BranchSnapshot snapshot) {
+        // One rebuild per branch at a time; readers keep the current columns until the swap
+        synchronized (snapshot) {
+            // Read before the chunks: a bulk write committing during the load triggers another rebuild
+            long epoch = ledgerVersionService.branchEpoch(branchId);
+            snapshot.lock.writeLock().lock();
+            try {
+                snapshot.rebuilding = true;
+                snapshot.touchedDuringRebuild.clear();
+            } finally {
+                snapshot.lock.writeLock().unlock();
+            }
+
+            int windowStart;
+            PaymentColumns columns;
+            long reserved = 0;
+            boolean[] full = {false};
+            try {
+                // The current columns are served until the swap, so they count against the budget too
+                int rowLimit = rowLimit(snapshot.bytes());
+                Window window = window(branchId, rowLimit);
+                windowStart = window.start();
+                reserved = reserve(branchId, PaymentColumns.estimatedBytes(window.rows()));
+
+                PaymentColumns loading = new PaymentColumns(rowLimit, (int) window.rows());
+                long lastId = 0;
+                int loaded;
+                do {
+                    long[] maxId = {lastId};
+                    int[] count = {0};
+                    jdbcTemplate.query(CHUNK_SQL, rs -> {
+                        if (!PaymentRow.of(rs).addTo(loading)) {
+                            full[0] = true;
+                        }
+                        maxId[0] = rs.getLong("id");
+                        count[0]++;
+                    }, branchId, windowStart, lastId, chunkSize);
+                    lastId = maxId[0];
+                    loaded = count[0];
+                } while (loaded == chunkSize);
+                columns = loading;
+            } catch (RuntimeException e) {
+                release(reserved);
+                // Keep serving the previous columns, updated by events again
+                snapshot.lock.writeLock().lock();
+                try {
+                    snapshot.rebuilding = false;
+                    snapshot.touchedDuringRebuild.clear();
+                } finally {
+                    snapshot.lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            snapshot.lock.writeLock().lock();
+            try {
+                snapshot.columns = columns;
+                snapshot.epoch = epoch;
+                snapshot.windowStart = windowStart;
+                snapshot.truncated = windowStart > currentPeriod() - retentionMonths + 1;
+                // Rows inserted since the window was chosen overflowed it; narrow it on the next query
+                snapshot.stale = full[0];
+                snapshot.loadedAt = LocalDateTime.now();
+                snapshot.rebuilding = false;
+                // Writes that committed while the chunks were read may be missing or outdated in them;
+                // replayed before any later event can apply, so the newest state wins
+                snapshot.touchedDuringRebuild.forEach((paymentId, row) -> apply(snapshot, paymentId, row));
+                snapshot.touchedDuringRebuild.clear();
+            } finally {
+                snapshot.lock.writeLock().unlock();
+            }
+            // The new columns are held by the snapshot now and the old ones are garbage
+            release(reserved);
+
+            log.debug("Analytics snapshot of branch {} loaded: {} rows from {}", branchId, columns.size(),
+                    periodToString(windowStart));
+        }
+    }
+
+    // Newest months first until the row limit, never further back than the retention
+    private Window window(Long branchId, int rowLimit) {
+        int oldest = currentPeriod() - retentionMonths + 1;
+        List<long[]> periodCounts = jdbcTemplate.query(PERIOD_COUNTS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, branchId, oldest);
+
+        long rows = 0;
+        int start = oldest;
+        for (long[] periodCount : periodCounts) {
+            if (rows + periodCount[1] > rowLimit) {
+                start = (int) periodCount[0] + 1;
+                break;
+            }
+            rows += periodCount[1];
+        }
+        return new Window(start, rows);
+    }
+
+    // A branch may use what the budget leaves next to its own current columns
+    private int rowLimit(long currentBytes) {
+        long affordable = (maxTotalBytes - currentBytes) / PaymentColumns.estimatedBytes(1);
+        return (int) Math.max(0, Math.min(maxRowsPerBranch, affordable));
+    }
+
+    // Evicts the least recently read other branches until the new columns fit next to everything held
+    private long reserve(Long branchId, long bytes) {
+        synchronized (budgetLock) {
+            long held = reservedBytes;
+            for (BranchSnapshot snapshot : snapshots.values()) {
+                held += snapshot.bytes();
+            }
+            List<Map.Entry<Long, BranchSnapshot>> leastRecentFirst = snapshots.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(branchId) && entry.getValue().columns != null)
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastReadAt))
+                    .toList();
+            for (Map.Entry<Long, BranchSnapshot> entry : leastRecentFirst) {
+                if (held + bytes <= maxTotalBytes) {
+                    break;
+                }
+                // Queries already reading it finish on the old columns; the next one loads the branch again
+                if (snapshots.remove(entry.getKey(), entry.getValue())) {
+                    held -= entry.getValue().bytes();
+                    log.info("Analytics snapshot of branch {} evicted to stay within {} bytes", entry.getKey(), maxTotalBytes);
+                }
+            }
+            reservedBytes += bytes;
+            return bytes;
+        }
+    }
+
+    private void release(long bytes) {
+        synchronized (budgetLock) {
+            reservedBytes -= bytes;
+        }
+    }
+
+    // row is the payment's committed state, null once it is deleted
+    private void applyChange(BranchSnapshot snapshot, Long paymentId, PaymentRow row) {
+        snapshot.lock.writeLock().lock();
+        try {
+            if (snapshot.rebuilding) {
+                snapshot.touchedDuringRebuild.put(paymentId, row);
+            }
+            apply(snapshot, paymentId, row);
+        } finally {
+            snapshot.lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private static void apply(BranchSnapshot snapshot, Long paymentId, PaymentRow row) {
+        if (snapshot.columns == null) {
+            return;
+        }
+        snapshot.columns.remove(paymentId);
+        if (row != null && row.period >= snapshot.windowStart && !row.addTo(snapshot.columns)) {
+            // At the row limit: the next query rebuilds with a shorter window
+            snapshot.stale = true;
+        }
+    }
+
+    private List<GroupInfo> loadGroups(Long branchId) {
+        return jdbcTemplate.query(GROUPS_SQL, (rs, rowNum) -> {
+            long teacherId = rs.getLong("teacher_id");
+            boolean hasTeacher = !rs.wasNull();
+            return new GroupInfo(rs.getLong("id"), rs.getLong("course_id"), rs.getString("course_name"),
+                    hasTeacher ? teacherId : null,
+                    hasTeacher ? rs.getString("first_name") + " " + rs.getString("last_name") : null,
+                    Money.ofNullable(rs.getBigDecimal("price")), rs.getInt("students"));
+        }, branchId);
+    }
+
+    private static List<AnalyticsBreakdownDto> breakdown(Map<Long, Collected> collected, Map<Long, Money> expected,
+                                                         Map<Long, String> names) {
+        Set<Long> keys = new HashSet<>(expected.keySet());
+        keys.addAll(collected.keySet());
+
+        List<AnalyticsBreakdownDto> result = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            Collected c = collected.getOrDefault(key, Collected.NONE);
+            Money due = expected.getOrDefault(key, Money.ZERO);
+            Double rate = due.isPositive() ? (double) c.amount / due.minorUnits() : null;
+            result.add(new AnalyticsBreakdownDto(key, names.get(key), new Money(c.amount).toBigDecimal(), c.payments,
+                    due.toBigDecimal(), rate));
+        }
+        result.sort((a, b) -> b.getCollected().compareTo(a.getCollected()));
+        return result;
+    }
+
+    private void updateGauges() {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        List<MultiGauge.Row<?>> bytes = new ArrayList<>();
+        for (AnalyticsSnapshotDto stats : snapshotStats()) {
+            Tags tags = Tags.of("branch", String.valueOf(stats.getBranchId()));
+            rows.add(MultiGauge.Row.of(tags, stats.getRows()));
+            bytes.add(MultiGauge.Row.of(tags, stats.getEstimatedBytes()));
+        }
+        rowsGauge.register(rows, true);
+        bytesGauge.register(bytes, true);
+    }
+
+    private void validateRange(int fromPeriod, int toPeriod) {
+        if (toPeriod < fromPeriod || toPeriod - fromPeriod >= retentionMonths) {
+            throw new RuntimeException("Noto'g'ri oraliq: ko'pi bilan " + retentionMonths + " oy bo'lishi kerak");
+        }
+    }
+
+    private static int currentPeriod() {
+        YearMonth now = YearMonth.now();
+        return PaymentColumns.period(now.getYear(), now.getMonthValue());
+    }
+
+    private static String periodToString(int period) {
+        return YearMonth.of(period / 12, period % 12 + 1).toString();
+    }
+
+    private static final class BranchSnapshot {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Payment id -> committed row (null: deleted), for writes that raced the chunk reads
+        private final Map<Long, PaymentRow> touchedDuringRebuild = new HashMap<>();
+        private volatile PaymentColumns columns;
+        private volatile long epoch;
+        private volatile boolean stale;
+        private volatile long lastReadAt = System.nanoTime();
+        private int windowStart;
+        private boolean truncated;
+        private boolean rebuilding;
+        private LocalDateTime loadedAt;
+
+        long bytes() {
+            lock.readLock().lock();
+            try {
+                return columns != null ? columns.estimatedBytes() : 0;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private record Window(int start, long rows) {
+    }
+
+    private record PaymentRow(long id, Long studentId, Long groupId, long courseId, int period, long amount,
+                              long createdAt) {
+
+        static PaymentRow of(ResultSet rs) throws SQLException {
+            long studentId = rs.getLong("student_id");
+            boolean hasStudent = !rs.wasNull();
+            long groupId = rs.getLong("group_id");
+            boolean hasGroup = !rs.wasNull();
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return new PaymentRow(rs.getLong("id"), hasStudent ? studentId : null, hasGroup ? groupId : null,
+                    rs.getLong("course_id"), PaymentColumns.period(rs.getInt("payment_year"), rs.getInt("payment_month")),
+                    Money.ofNullable(rs.getBigDecimal("amount")).minorUnits(),
+                    createdAt != null ? createdAt.getTime() / 1000 : 0);
+        }
+
+        // The creation time falls back to the event's, for a DTO built before the row was flushed
+        static PaymentRow of(PaymentDto payment, LocalDateTime occurredAt) {
+            LocalDateTime createdAt = payment.getCreatedAt() != null ? payment.getCreatedAt() : occurredAt;
+            return new PaymentRow(payment.getId(), payment.getStudentId(), payment.getGroupId(), payment.getCourseId(),
+                    PaymentColumns.period(payment.getPaymentYear(), payment.getPaymentMonth()),
+                    Money.ofNullable(payment.getAmount()).minorUnits(),
+                    createdAt.atZone(ZoneId.systemDefault()).toEpochSecond());
+        }
+
+        boolean addTo(PaymentColumns columns) {
+            return columns.add(id, studentId, groupId, courseId, period, amount, createdAt);
+        }
+    }
+
+    private record GroupInfo(long id, long courseId, String courseName, Long teacherId, String teacherName,
+                             Money price, int students) {
+
+        Money expected() {
+            return new Money(Math.multiplyExact(price.minorUnits(), students));
+        }
+    }
+
+    private record Collected(long amount, int payments) {
+        static final Collected NONE = new Collected(0, 0);
+
+        Collected plus(Collected other) {
+            return new Collected(amount + other.amount, payments + other.payments);
+        }
+    }
+}
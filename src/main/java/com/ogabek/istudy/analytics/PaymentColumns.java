@@ -0,0 +1,344 @@
+package com.ogabek.istudy.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columnar copy of one branch's payments: one primitive array per attribute, row i across all of them.
+ * Student, group and course ids are dictionary-encoded to dense ordinals, so a group-by accumulates
+ * into plain arrays indexed by ordinal instead of hash maps. Rows stay dense: removing a payment
+ * moves the last row into its slot, so row order means nothing. A primitive payment id index finds
+ * the row of an update or delete without a scan.
+ * Not thread-safe; {@link PaymentAnalyticsService} guards every instance with a read/write lock.
+ */
+final class PaymentColumns {
+    // Ordinal of a null student or group (payments keep them nullable)
+    static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Seven row attributes, plus two index slots (id and row) at half load
+    private static final long BYTES_PER_ROW = 8L + 4 + 4 + 4 + 4 + 8 + 8 + 2 * (8 + 4);
+
+    private final int maxRows;
+    private final Dictionary studentIds = new Dictionary();
+    private final Dictionary groupIds = new Dictionary();
+    private final Dictionary courseIds = new Dictionary();
+
+    private long[] paymentIds;
+    private int[] students;
+    private int[] groups;
+    private int[] courses;
+    private int[] periods;     // year * 12 + month - 1
+    private long[] amounts;    // tiyin
+    private long[] createdAt;  // epoch seconds
+    private int size;
+
+    // Payment id -> row, open addressing with linear probing; ids are positive, so 0 marks a free slot
+    private long[] indexIds;
+    private int[] indexRows;
+
+    // Sized for the expected rows up front, so a full load does not copy the arrays while growing
+    PaymentColumns(int maxRows, int expectedRows) {
+        this.maxRows = maxRows;
+        int capacity = Math.max(INITIAL_CAPACITY, Math.min(maxRows, expectedRows));
+        paymentIds = new long[capacity];
+        students = new int[capacity];
+        groups = new int[capacity];
+        courses = new int[capacity];
+        periods = new int[capacity];
+        amounts = new long[capacity];
+        createdAt = new long[capacity];
+        indexIds = new long[indexCapacity(capacity)];
+        indexRows = new int[indexIds.length];
+    }
+
+    // Heap of a snapshot holding this many rows, without the id dictionaries
+    static long estimatedBytes(long rows) {
+        return BYTES_PER_ROW * rows;
+    }
+
+    static int period(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    // False when the branch is at its row limit; the caller then narrows the window on the next rebuild
+    boolean add(long paymentId, Long studentId, Long groupId, long courseId, int period, long amount, long createdAtEpoch) {
+        if (size == maxRows) {
+            return false;
+        }
+        if (size == paymentIds.length) {
+            grow();
+        }
+        paymentIds[size] = paymentId;
+        students[size] = studentIds.ordinal(studentId);
+        groups[size] = groupIds.ordinal(groupId);
+        courses[size] = courseIds.ordinal(courseId);
+        periods[size] = period;
+        amounts[size] = amount;
+        createdAt[size] = createdAtEpoch;
+        indexPut(paymentId, size);
+        size++;
+        return true;
+    }
+
+    boolean remove(long paymentId) {
+        int slot = indexFind(paymentId);
+        if (slot < 0) {
+            return false;
+        }
+        int row = indexRows[slot];
+        indexDelete(slot);
+
+        int last = --size;
+        if (row != last) {
+            paymentIds[row] = paymentIds[last];
+            students[row] = students[last];
+            groups[row] = groups[last];
+            courses[row] = courses[last];
+            periods[row] = periods[last];
+            amounts[row] = amounts[last];
+            createdAt[row] = createdAt[last];
+            indexRows[indexFind(paymentIds[row])] = row;
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long studentId(int ordinal) {
+        return studentIds.id(ordinal);
+    }
+
+    long groupId(int ordinal) {
+        return groupIds.id(ordinal);
+    }
+
+    long courseId(int ordinal) {
+        return courseIds.id(ordinal);
+    }
+
+    // Array capacity, the payment index and the id dictionaries; an estimate, but one that tracks growth
+    long estimatedBytes() {
+        long perRow = 8L + 4 + 4 + 4 + 4 + 8 + 8;
+        return perRow * paymentIds.length + (8L + 4) * indexIds.length
+                + studentIds.estimatedBytes() + groupIds.estimatedBytes() + courseIds.estimatedBytes();
+    }
+
+    // Sum and count of payments per ordinal of the dimension, for periods in [fromPeriod, toPeriod]
+    Aggregate aggregate(Dimension dimension, int fromPeriod, int toPeriod) {
+        int buckets = switch (dimension) {
+            case STUDENT -> studentIds.size();
+            case GROUP -> groupIds.size();
+            case COURSE -> courseIds.size();
+            case PERIOD -> toPeriod - fromPeriod + 1;
+        };
+        long[] sums = new long[buckets];
+        int[] counts = new int[buckets];
+
+        if (dimension == Dimension.PERIOD) {
+            for (int i = 0; i < size; i++) {
+                int period = periods[i];
+                if (period >= fromPeriod && period <= toPeriod) {
+                    sums[period - fromPeriod] += amounts[i];
+                    counts[period - fromPeriod]++;
+                }
+            }
+            return new Aggregate(sums, counts);
+        }
+
+        int[] keys = switch (dimension) {
+            case STUDENT -> students;
+            case GROUP -> groups;
+            default -> courses;
+        };
+        for (int i = 0; i < size; i++) {
+            int period = periods[i];
+            int key = keys[i];
+            if (period >= fromPeriod && period <= toPeriod && key != NONE) {
+                sums[key] += amounts[i];
+                counts[key]++;
+            }
+        }
+        return new Aggregate(sums, counts);
+    }
+
+    // Payments received in [fromEpoch, toEpoch) by creation time, whatever month they pay for
+    Aggregate receivedBetween(long fromEpoch, long toEpoch) {
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            long created = createdAt[i];
+            if (created >= fromEpoch && created < toEpoch) {
+                sum += amounts[i];
+                count++;
+            }
+        }
+        return new Aggregate(new long[]{sum}, new int[]{count});
+    }
+
+    /**
+     * Cohort retention: students grouped by the month of their first payment (within [fromPeriod,
+     * toPeriod]), and for each cohort the number of those students paying k months later.
+     * retained[c][k] counts distinct students; k = 0 is the cohort size.
+     */
+    int[][] retention(int fromPeriod, int toPeriod) {
+        int months = toPeriod - fromPeriod + 1;
+        int studentCount = studentIds.size();
+        int[] firstPeriod = new int[studentCount];
+        Arrays.fill(firstPeriod, Integer.MAX_VALUE);
+
+        // One bit per (student, month) so several payments in a month count once
+        int words = (months + 63) >>> 6;
+        long[] paidMonths = new long[studentCount * words];
+        for (int i = 0; i < size; i++) {
+            int student = students[i];
+            if (student == NONE) {
+                continue;
+            }
+            int period = periods[i];
+            if (period < firstPeriod[student]) {
+                firstPeriod[student] = period;
+            }
+            if (period >= fromPeriod && period <= toPeriod) {
+                int month = period - fromPeriod;
+                paidMonths[student * words + (month >>> 6)] |= 1L << month;
+            }
+        }
+
+        int[][] retained = new int[months][];
+        for (int c = 0; c < months; c++) {
+            retained[c] = new int[months - c];
+        }
+        for (int student = 0; student < studentCount; student++) {
+            int cohort = firstPeriod[student] - fromPeriod;
+            if (cohort < 0 || cohort >= months) {
+                continue;
+            }
+            int[] row = retained[cohort];
+            for (int k = 0; k < row.length; k++) {
+                int month = cohort + k;
+                if ((paidMonths[student * words + (month >>> 6)] & (1L << month)) != 0) {
+                    row[k]++;
+                }
+            }
+        }
+        return retained;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min((long) maxRows, paymentIds.length + (paymentIds.length >> 1));
+        paymentIds = Arrays.copyOf(paymentIds, capacity);
+        students = Arrays.copyOf(students, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+        courses = Arrays.copyOf(courses, capacity);
+        periods = Arrays.copyOf(periods, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+
+        // Rehash into a table sized for the new capacity
+        long[] oldIds = indexIds;
+        int[] oldRows = indexRows;
+        indexIds = new long[indexCapacity(capacity)];
+        indexRows = new int[indexIds.length];
+        for (int slot = 0; slot < oldIds.length; slot++) {
+            if (oldIds[slot] != 0) {
+                indexPut(oldIds[slot], oldRows[slot]);
+            }
+        }
+    }
+
+    // Power of two at least twice the row capacity, so the table stays at most half full
+    private static int indexCapacity(int rowCapacity) {
+        return Integer.highestOneBit(Math.max(2, rowCapacity) * 2 - 1) << 1;
+    }
+
+    private int home(long paymentId) {
+        long hash = paymentId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (indexIds.length - 1);
+    }
+
+    private int indexFind(long paymentId) {
+        int mask = indexIds.length - 1;
+        for (int slot = home(paymentId); ; slot = (slot + 1) & mask) {
+            long id = indexIds[slot];
+            if (id == paymentId) {
+                return slot;
+            }
+            if (id == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void indexPut(long paymentId, int row) {
+        int mask = indexIds.length - 1;
+        int slot = home(paymentId);
+        while (indexIds[slot] != 0 && indexIds[slot] != paymentId) {
+            slot = (slot + 1) & mask;
+        }
+        indexIds[slot] = paymentId;
+        indexRows[slot] = row;
+    }
+
+    // Backward-shift deletion: later entries of the probe run move into the gap, so lookups need no tombstones
+    private void indexDelete(int slot) {
+        int mask = indexIds.length - 1;
+        int gap = slot;
+        for (int i = (slot + 1) & mask; indexIds[i] != 0; i = (i + 1) & mask) {
+            int home = home(indexIds[i]);
+            // The entry may move back only if the gap is not before its home slot
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                indexIds[gap] = indexIds[i];
+                indexRows[gap] = indexRows[i];
+                gap = i;
+            }
+        }
+        indexIds[gap] = 0;
+    }
+
+    enum Dimension {
+        STUDENT, GROUP, COURSE, PERIOD
+    }
+
+    // Indexed by dimension ordinal (or by period offset for PERIOD); amounts in tiyin
+    record Aggregate(long[] sums, int[] counts) {
+    }
+
+    // Entity id <-> dense ordinal; ids are never dropped, a rebuild starts a fresh dictionary
+    private static final class Dictionary {
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private long[] ids = new long[64];
+
+        int ordinal(Long id) {
+            if (id == null) {
+                return NONE;
+            }
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = ordinals.size();
+                if (ordinal == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                ids[ordinal] = id;
+                ordinals.put(id, ordinal);
+            }
+            return ordinal;
+        }
+
+        long id(int ordinal) {
+            return ids[ordinal];
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+
+        // HashMap entry with boxed key and value is roughly 64 bytes
+        long estimatedBytes() {
+            return 8L * ids.length + 64L * ordinals.size();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ogabek.istudy.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller method (or every method of a controller) into a cost class. The method-level
+ * annotation wins over the class-level one; unannotated endpoints are not limited.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+    CostClass value();
+}
@@ -0,0 +1,55 @@
+package com.ogabek.istudy.bulkhead;
+
+import com.ogabek.istudy.exception.ServiceBusyException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits a request to a {@link Bulkhead}-annotated endpoint only while its cost class has a free
+ * permit; otherwise waits up to the class's queue timeout and then rejects with 503.
+ * The permit is held until the response is complete.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkheadInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        if (bulkhead == null) {
+            return true;
+        }
+
+        BulkheadRegistry.Compartment compartment = bulkheadRegistry.get(bulkhead.value());
+        if (!compartment.tryAcquire()) {
+            throw new ServiceBusyException("Server band, birozdan so'ng qayta urinib ko'ring", compartment.getRetryAfterSeconds());
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, compartment);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof BulkheadRegistry.Compartment compartment) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            compartment.release();
+        }
+    }
+}
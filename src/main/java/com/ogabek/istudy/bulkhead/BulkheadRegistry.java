@@ -0,0 +1,90 @@
+package com.ogabek.istudy.bulkhead;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// One fair semaphore per cost class, sized from app.bulkhead.<class>.max-concurrent
+@Component
+@Slf4j
+public class BulkheadRegistry {
+    private final Map<CostClass, Compartment> compartments = new EnumMap<>(CostClass.class);
+    private final MeterRegistry meterRegistry;
+
+    public BulkheadRegistry(Environment environment, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        int heavyPermits = 0;
+        for (CostClass costClass : CostClass.values()) {
+            String prefix = "app.bulkhead." + costClass.getPropertyKey() + ".";
+            Compartment compartment = new Compartment(costClass,
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, costClass.getDefaultMaxConcurrent()),
+                    environment.getProperty(prefix + "queue-timeout-ms", Long.class, costClass.getDefaultQueueTimeoutMs()),
+                    environment.getProperty(prefix + "retry-after-seconds", Long.class, costClass.getDefaultRetryAfterSeconds()));
+            compartments.put(costClass, compartment);
+            if (costClass == CostClass.REPORT || costClass == CostClass.BULK) {
+                heavyPermits += compartment.semaphore.availablePermits();
+            }
+
+            Gauge.builder("istudy.bulkhead.available", compartment.semaphore, Semaphore::availablePermits)
+                    .tag("cost_class", costClass.getPropertyKey())
+                    .register(meterRegistry);
+        }
+
+        // Reports and bulk work must leave connections for cashier requests, or the bulkheads protect nothing
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        if (heavyPermits >= poolSize) {
+            log.warn("Report and bulk permits ({}) leave no connections of the pool ({}) for other requests",
+                    heavyPermits, poolSize);
+        }
+    }
+
+    public Compartment get(CostClass costClass) {
+        return compartments.get(costClass);
+    }
+
+    public final class Compartment {
+        private final CostClass costClass;
+        private final Semaphore semaphore;
+        private final long queueTimeoutMs;
+        private final long retryAfterSeconds;
+
+        private Compartment(CostClass costClass, int maxConcurrent, long queueTimeoutMs, long retryAfterSeconds) {
+            this.costClass = costClass;
+            this.semaphore = new Semaphore(maxConcurrent, true);
+            this.queueTimeoutMs = queueTimeoutMs;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        // Waits up to the queue timeout for a permit
+        public boolean tryAcquire() {
+            try {
+                if (semaphore.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            meterRegistry.counter("istudy.bulkhead.rejected", "cost_class", costClass.getPropertyKey()).increment();
+            return false;
+        }
+
+        public void release() {
+            semaphore.release();
+        }
+
+        public CostClass getCostClass() {
+            return costClass;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ogabek.istudy.bulkhead;
+
+/**
+ * Cost classes of API endpoints. Each class has its own concurrency limit, so heavy reporting can
+ * never take the connections that cashier writes need. Report and bulk together stay well below the
+ * 10-connection pool; ordinary reads are not limited and wait for a connection in Hikari like any
+ * other request. Defaults can be overridden with {@code app.bulkhead.<property-key>.*}.
+ */
+public enum CostClass {
+    REPORT("report", 2, 2000, 10),
+    BULK("bulk", 1, 2000, 5),
+    INTERACTIVE_WRITE("interactive-write", 3, 5000, 1);
+
+    private final String propertyKey;
+    private final int defaultMaxConcurrent;
+    private final long defaultQueueTimeoutMs;
+    private final long defaultRetryAfterSeconds;
+
+    CostClass(String propertyKey, int defaultMaxConcurrent, long defaultQueueTimeoutMs, long defaultRetryAfterSeconds) {
+        this.propertyKey = propertyKey;
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultQueueTimeoutMs = defaultQueueTimeoutMs;
+        this.defaultRetryAfterSeconds = defaultRetryAfterSeconds;
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public int getDefaultMaxConcurrent() {
+        return defaultMaxConcurrent;
+    }
+
+    public long getDefaultQueueTimeoutMs() {
+        return defaultQueueTimeoutMs;
+    }
+
+    public long getDefaultRetryAfterSeconds() {
+        return defaultRetryAfterSeconds;
+    }
+}
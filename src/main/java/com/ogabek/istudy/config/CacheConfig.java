@@ -0,0 +1,93 @@
+package com.ogabek.istudy.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Reference-data cache for branches, courses and teachers. Entries are DTOs, never entities,
+ * and are evicted by the owning service's writes. Evictions inside a transaction run after commit,
+ * so a concurrent read cannot re-cache the row being changed.
+ * The reports cache is never evicted: its keys carry the branch ledger version (see
+ * LedgerVersionService), so stale entries are simply never read again and only age out. It has its
+ * own size and idle expiry for that reason, plus a hard age limit: ledger versions are per instance,
+ * and a report kept alive by polling on an instance that did not take the write would otherwise
+ * never expire.
+ * Hit/miss counts are published as {@code cache.gets} on /actuator/metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String BRANCHES = "branches";
+    public static final String BRANCH_LIST = "branchList";
+    public static final String COURSES = "courses";
+    public static final String BRANCH_COURSES = "branchCourses";
+    public static final String TEACHERS = "teachers";
+    public static final String BRANCH_TEACHERS = "branchTeachers";
+    public static final String REPORTS = "reports";
+
+    // Hibernate second-level cache regions (see the @Cache annotations on the entities)
+    private static final String[] ENTITY_REGIONS = {"entity.branch", "entity.course", "entity.teacher"};
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.reference.max-size:1000}") long maxSize,
+                                     @Value("${app.cache.reference.ttl-minutes:60}") long ttlMinutes,
+                                     @Value("${app.cache.reports.max-size:500}") long reportsMaxSize,
+                                     @Value("${app.cache.reports.idle-minutes:30}") long reportsIdleMinutes,
+                                     @Value("${app.cache.reports.max-age-minutes:5}") long reportsMaxAgeMinutes) {
+        // Fixed set of caches, created up front so their metrics are bound at startup
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                BRANCHES, BRANCH_LIST, COURSES, BRANCH_COURSES, TEACHERS, BRANCH_TEACHERS);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats());
+        // Superseded versions are no longer requested, so they expire after a short idle time
+        cacheManager.registerCustomCache(REPORTS, Caffeine.newBuilder()
+                .maximumSize(reportsMaxSize)
+                .expireAfterAccess(Duration.ofMinutes(reportsIdleMinutes))
+                .expireAfterWrite(Duration.ofMinutes(reportsMaxAgeMinutes))
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * Second-level cache for the Branch, Course and Teacher entities, so the findById lookups on
+     * write paths (and lazy branch/course/teacher references) are served from memory. Hibernate
+     * updates and evicts these entries itself on every write through JPA, including bulk deletes.
+     * Same size and TTL as the DTO caches; hits and misses are on /actuator/metrics as
+     * {@code hibernate.second.level.cache.requests}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(@Value("${app.cache.reference.max-size:1000}") long maxSize,
+                                                               @Value("${app.cache.reference.ttl-minutes:60}") long ttlMinutes) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        javax.cache.CacheManager entityCacheManager = provider.getCacheManager(
+                provider.getDefaultURI(), CacheConfig.class.getClassLoader());
+        for (String region : ENTITY_REGIONS) {
+            if (entityCacheManager.getCache(region) == null) {
+                CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+                configuration.setMaximumSize(OptionalLong.of(maxSize));
+                configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofMinutes(ttlMinutes).toNanos()));
+                configuration.setStatisticsEnabled(true);
+                entityCacheManager.createCache(region, configuration);
+            }
+        }
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+}
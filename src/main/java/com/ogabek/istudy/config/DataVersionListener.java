@@ -0,0 +1,109 @@
+package com.ogabek.istudy.config;
+
+import com.ogabek.istudy.entity.Branch;
+import com.ogabek.istudy.entity.BranchScoped;
+import com.ogabek.istudy.service.DataVersionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attributes every entity insert, update and delete (and group membership change) to its branch,
+ * so the branch data version moves on any write without each service having to remember it.
+ * Replacing a collection ({@code group.setStudents(new HashSet<>())}) is reported as remove plus
+ * recreate rather than update, so all three collection events count. Rows without a branch (e.g.
+ * SUPER_ADMIN users) move only the global version.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersionListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionUpdateEventListener, PostCollectionRecreateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataVersionService dataVersionService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getEntity());
+
+        // An entity moved to another branch changes the old branch's data too
+        Object[] oldState = event.getOldState();
+        if (oldState != null && event.getEntity() instanceof BranchScoped) {
+            String[] propertyNames = event.getPersister().getPropertyNames();
+            for (int i = 0; i < propertyNames.length; i++) {
+                if ("branch".equals(propertyNames[i]) && oldState[i] instanceof Branch oldBranch) {
+                    dataVersionService.recordWrite(oldBranch.getId());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        record(event.getAffectedOwnerOrNull());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        record(event.getAffectedOwnerOrNull());
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        record(event.getAffectedOwnerOrNull());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(Object entity) {
+        if (entity instanceof Branch branch) {
+            dataVersionService.recordWrite(branch.getId());
+        } else if (entity instanceof BranchScoped scoped) {
+            dataVersionService.recordWrite(scoped.getBranch() != null ? scoped.getBranch().getId() : null);
+        }
+    }
+}
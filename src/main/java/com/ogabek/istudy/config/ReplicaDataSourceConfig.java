@@ -0,0 +1,82 @@
+package com.ogabek.istudy.config;
+
+import com.ogabek.istudy.service.DataVersionService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with primary + read replicas when
+ * {@code app.datasource.replica.enabled=true}. The primary pool keeps all spring.datasource.* settings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataVersionService dataVersionService,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${app.datasource.replica.urls}") String[] urls,
+                                                             @Value("${app.datasource.replica.username}") String username,
+                                                             @Value("${app.datasource.replica.password}") String password,
+                                                             @Value("${app.datasource.replica.pool-size:10}") int poolSize,
+                                                             @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs,
+                                                             @Value("${app.datasource.replica.lag-check-ms:5000}") long lagCheckMs,
+                                                             @Value("${app.datasource.replica.stickiness-ms:10000}") long stickinessMs) {
+        List<String> replicaUrls = Arrays.stream(urls).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalStateException("app.datasource.replica.urls must list at least one replica when replicas are enabled");
+        }
+        // A replica only re-enters rotation after a lag check, so a write may take max-lag plus one check to become visible
+        if (stickinessMs < maxLagMs + lagCheckMs) {
+            throw new IllegalStateException("app.datasource.replica.stickiness-ms must be at least max-lag-ms + lag-check-ms");
+        }
+
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setJdbcUrl(replicaUrls.get(i));
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setDriverClassName(primaryDataSource.getDriverClassName());
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicaPools.add(pool);
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPools,
+                Duration.ofMillis(maxLagMs), Duration.ofMillis(stickinessMs), dataVersionService,
+                Clock.systemUTC(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,227 @@
+package com.ogabek.istudy.config;
+
+import com.ogabek.istudy.service.DataVersionService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to a healthy replica and everything else to the primary.
+ * A replica is used only while its replay lag is within {@code max-lag}; until the first lag check
+ * succeeds, and whenever every replica is lagging, down or detached from the primary, reads fall
+ * back to the primary.
+ * Two kinds of reads stay on the primary for the stickiness window after a write:
+ * <ul>
+ *   <li>reads of the user who wrote, so they see their own write;</li>
+ *   <li>reads served under a branch's current data or ledger version (an ETag or a version-keyed
+ *       cache entry, see {@link DataVersionService#pinRead}) while that branch has a write in the
+ *       window. A lagging replica would otherwise answer with old rows under the new version, and
+ *       clients would revalidate against that stale copy until the next write.</li>
+ * </ul>
+ * All other reads use the replicas regardless of writes elsewhere. The window must cover
+ * {@code max-lag} plus one lag check, which the configuration enforces.
+ * Must be wrapped in a LazyConnectionDataSourceProxy: the read-only flag of the transaction is only
+ * known once the first statement runs, not when the transaction begins.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    static final String PRIMARY = "primary";
+    // Lag of a replica that did not answer or has no WAL receiver
+    static final long UNAVAILABLE = -1;
+
+    // 0 when the replica has replayed everything it received (an idle primary does not count as lag);
+    // NULL when no WAL receiver is running, since a detached replica also has nothing left to replay
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver) THEN NULL
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMs;
+    private final long stickinessMs;
+    private final DataVersionService dataVersionService;
+    private final Clock clock;
+    // Username -> when their last write transaction finished (or started, while it is still open)
+    private final ConcurrentMap<String, Long> userWrittenAt = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    Duration maxLag, Duration stickiness, DataVersionService dataVersionService,
+                                    Clock clock, MeterRegistry meterRegistry) {
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLagMs = maxLag.toMillis();
+        this.stickinessMs = stickiness.toMillis();
+        this.dataVersionService = dataVersionService;
+        this.clock = clock;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.name, replica.pool);
+            Gauge.builder("istudy.datasource.replica.lag", replica, r -> r.lagMs / 1000.0)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                markWrite();
+            }
+            return PRIMARY;
+        }
+        if (mustReadPrimary()) {
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:5000}")
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            long lagMs;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                lagMs = lagMillis(resultSet);
+                if (lagMs == UNAVAILABLE) {
+                    log.debug("Replica {} has no WAL receiver", replica.name);
+                }
+            } catch (SQLException e) {
+                log.debug("Replica {} lag check failed: {}", replica.name, e.getMessage());
+                lagMs = UNAVAILABLE;
+            }
+            recordLag(replica, lagMs);
+        }
+
+        // Writers whose window has passed read from the replicas again
+        long now = clock.millis();
+        userWrittenAt.values().removeIf(writtenAt -> now - writtenAt >= stickinessMs);
+    }
+
+    // Replay lag from LAG_QUERY in milliseconds, or UNAVAILABLE for a replica without a WAL receiver
+    static long lagMillis(ResultSet resultSet) throws SQLException {
+        if (!resultSet.next()) {
+            return UNAVAILABLE;
+        }
+        double lagSeconds = resultSet.getDouble(1);
+        return resultSet.wasNull() ? UNAVAILABLE : (long) (lagSeconds * 1000);
+    }
+
+    // Applies a lag check result by replica name; package-private for the routing tests
+    void recordLag(String replicaName, long lagMs) {
+        replicas.stream()
+                .filter(replica -> replica.name.equals(replicaName))
+                .forEach(replica -> recordLag(replica, lagMs));
+    }
+
+    private void recordLag(Replica replica, long lagMs) {
+        boolean healthy = lagMs != UNAVAILABLE && lagMs <= maxLagMs;
+        if (lagMs != UNAVAILABLE) {
+            replica.lagMs = lagMs;
+        }
+        if (healthy != replica.healthy) {
+            log.warn("Replica {} is now {} (lag {} ms)", replica.name, healthy ? "in rotation" : "out of rotation", replica.lagMs);
+        }
+        replica.healthy = healthy;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private boolean mustReadPrimary() {
+        long now = clock.millis();
+        String user = currentUser();
+        if (user != null) {
+            Long writtenAt = userWrittenAt.get(user);
+            if (writtenAt != null && now - writtenAt < stickinessMs) {
+                return true;
+            }
+        }
+        for (Long branchId : dataVersionService.pinnedReads()) {
+            if (now - dataVersionService.lastWriteAt(branchId) < stickinessMs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stamped when the write starts and again when it completes, so a long transaction still opens a full window
+    private void markWrite() {
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        userWrittenAt.put(user, clock.millis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userWrittenAt.put(user, clock.millis());
+                }
+            });
+        }
+    }
+
+    // Scheduled jobs and anonymous requests have no reads of their own to keep consistent
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile long lagMs;
+
+        private Replica(HikariDataSource pool) {
+            this.name = pool.getPoolName();
+            this.pool = pool;
+        }
+    }
+}
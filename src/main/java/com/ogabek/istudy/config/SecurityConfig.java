@@ -2,6 +2,7 @@ package com.ogabek.istudy.config;
 
 import com.ogabek.istudy.security.JwtAuthTokenFilter;
 import com.ogabek.istudy.security.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -80,6 +81,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Re-dispatch of an already authorized async request (SSE stream completion/timeout)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
@@ -91,6 +95,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/admin/branches/**").hasRole("SUPER_ADMIN")
                         .requestMatchers("/api/admin/users/**").hasRole("SUPER_ADMIN")
                         .requestMatchers("/api/admin/reports/all-branches/**").hasRole("SUPER_ADMIN")
+                        .requestMatchers("/api/admin/diagnostics/**").hasRole("SUPER_ADMIN")
+                        .requestMatchers("/actuator/metrics/**", "/actuator/caches/**", "/actuator/prometheus").hasRole("SUPER_ADMIN")
 
                         // Admin and Super Admin endpoints
                         .requestMatchers("/api/**").hasAnyRole("ADMIN", "SUPER_ADMIN")
@@ -0,0 +1,384 @@
+package com.ogabek.istudy.config;
+
+import com.ogabek.istudy.entity.*;
+import com.ogabek.istudy.repository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills an empty database with a production-sized data set for scale and performance testing:
+ * branches with courses, teachers, groups and students, plus monthly payments, expenses and teacher
+ * salary payouts for the last {@code app.synthetic.months} months.
+ * Only active with the "synthetic" profile, e.g. {@code --spring.profiles.include=synthetic}.
+ * The same seed and end month always produce the same rows (and, on a fresh schema, the same ids).
+ * Rows go through the entity model in batched inserts (hibernate.jdbc.batch_size); created_at is
+ * backdated afterwards because {@code @CreationTimestamp} always stamps the insert time.
+ */
+@Component
+@Profile("synthetic")
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+    private static final int FLUSH_SIZE = 1000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final String[] FIRST_NAMES = {
+            "Aziz", "Bekzod", "Dilshod", "Jasur", "Sardor", "Otabek", "Javohir", "Sherzod", "Akmal", "Farrux",
+            "Nodira", "Malika", "Dilnoza", "Madina", "Zarina", "Shahnoza", "Gulnora", "Kamola", "Sevara", "Munisa"
+    };
+    private static final String[] LAST_NAMES = {
+            "Karimov", "Rahimov", "Yusupov", "Aliyev", "Tursunov", "Ismoilov", "Qodirov", "Saidov", "Nazarov",
+            "Ergashev", "Xolmatov", "Abdullayev", "Mirzayev", "Sobirov", "Usmonov", "Hasanov"
+    };
+    private static final String[] COURSE_NAMES = {
+            "General English", "IELTS", "Matematika", "Fizika", "Kimyo", "Biologiya", "Rus tili",
+            "Dasturlash", "Koreys tili", "Tarix"
+    };
+    private static final String[] TIME_SLOTS = {"08:00", "09:30", "11:00", "14:00", "15:30", "17:00", "18:30"};
+    private static final String[] DAY_PATTERNS = {"MONDAY,WEDNESDAY,FRIDAY", "TUESDAY,THURSDAY,SATURDAY"};
+    private static final ExpenseCategory[] MISC_CATEGORIES = {
+            ExpenseCategory.SUPPLIES, ExpenseCategory.MAINTENANCE, ExpenseCategory.OTHER
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final StudentRepository studentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${app.synthetic.branches:20}")
+    private int branchCount;
+
+    @Value("${app.synthetic.students:50000}")
+    private int studentCount;
+
+    @Value("${app.synthetic.groups:2000}")
+    private int groupCount;
+
+    @Value("${app.synthetic.courses-per-branch:10}")
+    private int coursesPerBranch;
+
+    @Value("${app.synthetic.months:36}")
+    private int months;
+
+    // Last generated month (yyyy-MM); empty means the current month
+    @Value("${app.synthetic.end-month:}")
+    private String endMonth;
+
+    public SyntheticDataGenerator(StudentRepository studentRepository, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        // Generated ids and amounts are only reproducible on an empty schema
+        if (studentRepository.count() > 0) {
+            log.warn("Synthetic data generation skipped: the database already contains students");
+            return;
+        }
+
+        YearMonth last = endMonth.isBlank() ? YearMonth.now() : YearMonth.parse(endMonth);
+        YearMonth first = last.minusMonths(months - 1L);
+        log.info("Generating synthetic data: {} branches, {} students, {} groups, {} to {}, seed {}",
+                branchCount, studentCount, groupCount, first, last, seed);
+
+        long started = System.nanoTime();
+        for (int branchIndex = 0; branchIndex < branchCount; branchIndex++) {
+            // Each branch has its own random stream, so changing one size does not reshuffle every branch
+            Random random = new Random(seed * 1_000_003L + branchIndex);
+            int students = share(studentCount, branchIndex);
+            int groups = share(groupCount, branchIndex);
+            generateBranch(branchIndex, random, students, Math.max(groups, 1), first);
+        }
+        backdatePeriodRows();
+
+        log.info("Synthetic data generated in {} s", (System.nanoTime() - started) / 1_000_000_000L);
+    }
+
+    private void generateBranch(int branchIndex, Random random, int studentTotal, int groupTotal, YearMonth first) {
+        BranchData branch = transactionTemplate.execute(status ->
+                createStructure(branchIndex, random, studentTotal, groupTotal, first));
+
+        long[] teacherRevenue = new long[branch.teacherIds.size() * months];
+        transactionTemplate.executeWithoutResult(status -> createPayments(branch, random, first, teacherRevenue));
+        transactionTemplate.executeWithoutResult(status -> createSalaryPayments(branch, teacherRevenue, first));
+        transactionTemplate.executeWithoutResult(status -> createExpenses(branch, random, first));
+
+        log.info("Synthetic branch {}/{} done: {} students, {} groups", branchIndex + 1, branchCount,
+                studentTotal, groupTotal);
+    }
+
+    private BranchData createStructure(int branchIndex, Random random, int studentTotal, int groupTotal, YearMonth first) {
+        LocalDateTime opened = first.atDay(1).atTime(9, 0);
+
+        Branch branch = new Branch();
+        branch.setName(String.format("Filial %02d", branchIndex + 1));
+        branch.setAddress("Toshkent, " + (branchIndex + 1) + "-mavze");
+        entityManager.persist(branch);
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < coursesPerBranch; i++) {
+            Course course = new Course();
+            course.setName(COURSE_NAMES[i % COURSE_NAMES.length] + (i < COURSE_NAMES.length ? "" : " " + (i / COURSE_NAMES.length + 1)));
+            course.setDescription("Synthetic course");
+            course.setPrice(BigDecimal.valueOf(300_000L + 50_000L * random.nextInt(11)));
+            course.setDurationMonths(3 + random.nextInt(10));
+            course.setBranch(branch);
+            entityManager.persist(course);
+            courses.add(course);
+        }
+
+        // Roughly three groups per teacher
+        int teacherTotal = Math.max(1, (groupTotal + 2) / 3);
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < teacherTotal; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setFirstName(pick(random, FIRST_NAMES));
+            teacher.setLastName(pick(random, LAST_NAMES));
+            teacher.setPhoneNumber(phone(random));
+            SalaryType salaryType = SalaryType.values()[random.nextInt(SalaryType.values().length)];
+            teacher.setSalaryType(salaryType);
+            teacher.setBaseSalary(salaryType == SalaryType.PERCENTAGE ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(2_000_000L + 250_000L * random.nextInt(9)));
+            teacher.setPaymentPercentage(salaryType == SalaryType.FIXED ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(20 + 5 * random.nextInt(5)));
+            teacher.setBranch(branch);
+            entityManager.persist(teacher);
+            teachers.add(teacher);
+        }
+
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < groupTotal; i++) {
+            Group group = new Group();
+            Course course = courses.get(random.nextInt(courses.size()));
+            group.setName(course.getName() + " #" + (i + 1));
+            group.setCourse(course);
+            group.setTeacher(teachers.get(i % teachers.size())); // same index as groupIndex % teachers.size() below
+            group.setBranch(branch);
+            String start = pick(random, TIME_SLOTS);
+            group.setStartTime(start);
+            group.setEndTime(String.format("%02d:%s", Integer.parseInt(start.substring(0, 2)) + 1, start.substring(3)));
+            group.setDaysOfWeek(pick(random, DAY_PATTERNS));
+            group.setStudents(new HashSet<>());
+            entityManager.persist(group);
+            groups.add(group);
+        }
+
+        BranchData data = new BranchData(branch.getId(), teachers.stream().map(Teacher::getId).toList());
+        List<Object[]> studentDates = new ArrayList<>(studentTotal);
+        for (int i = 0; i < studentTotal; i++) {
+            Student student = new Student();
+            student.setFirstName(pick(random, FIRST_NAMES));
+            student.setLastName(pick(random, LAST_NAMES));
+            student.setPhoneNumber(phone(random));
+            student.setParentPhoneNumber(phone(random));
+            student.setBranch(branch);
+            entityManager.persist(student);
+
+            // Enrolls in some month of the window and stays for a course-like stretch
+            int joined = random.nextInt(months);
+            int left = Math.min(months, joined + 3 + random.nextInt(18));
+            studentDates.add(new Object[]{timestamp(first.plusMonths(joined), random), student.getId()});
+
+            // Most students attend one group, some two
+            int memberships = random.nextInt(5) == 0 ? 2 : 1;
+            for (int m = 0; m < memberships; m++) {
+                int groupIndex = random.nextInt(groups.size());
+                Group group = groups.get(groupIndex);
+                if (group.getStudents().add(student)) {
+                    data.enrollments.add(new Enrollment(student.getId(), group.getId(), group.getCourse().getId(),
+                            groupIndex % teachers.size(), group.getCourse().getPrice(), joined, left));
+                }
+            }
+        }
+        entityManager.flush();
+
+        // @CreationTimestamp stamped "now"; move everything to when it would have been created
+        for (String table : List.of("courses", "teachers", "groups")) {
+            jdbcTemplate.update("UPDATE " + table + " SET created_at = ? WHERE branch_id = ?", opened, branch.getId());
+        }
+        jdbcTemplate.update("UPDATE branches SET created_at = ? WHERE id = ?", opened, branch.getId());
+        jdbcTemplate.batchUpdate("UPDATE students SET created_at = ? WHERE id = ?", studentDates);
+        entityManager.clear();
+        return data;
+    }
+
+    private void createPayments(BranchData branch, Random random, YearMonth first, long[] teacherRevenue) {
+        Branch branchRef = entityManager.getReference(Branch.class, branch.branchId);
+        int pending = 0;
+        for (int month = 0; month < months; month++) {
+            YearMonth period = first.plusMonths(month);
+            for (Enrollment enrollment : branch.enrollments) {
+                // Active students pay most months; the rest show up as unpaid
+                if (month < enrollment.joined || month >= enrollment.left || random.nextInt(100) >= 88) {
+                    continue;
+                }
+                Payment payment = new Payment();
+                payment.setStudent(entityManager.getReference(Student.class, enrollment.studentId));
+                payment.setGroup(entityManager.getReference(Group.class, enrollment.groupId));
+                payment.setCourse(entityManager.getReference(Course.class, enrollment.courseId));
+                payment.setBranch(branchRef);
+                payment.setAmount(enrollment.price);
+                payment.setDescription(period + " oylik to'lov");
+                payment.setStatus(PaymentStatus.COMPLETED);
+                payment.setPaymentYear(period.getYear());
+                payment.setPaymentMonth(period.getMonthValue());
+                entityManager.persist(payment);
+                teacherRevenue[enrollment.teacherIndex * months + month] += enrollment.price.longValue();
+
+                if (++pending == FLUSH_SIZE) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    branchRef = entityManager.getReference(Branch.class, branch.branchId);
+                    pending = 0;
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void createSalaryPayments(BranchData branch, long[] teacherRevenue, YearMonth first) {
+        Branch branchRef = entityManager.getReference(Branch.class, branch.branchId);
+        for (int t = 0; t < branch.teacherIds.size(); t++) {
+            Teacher teacher = entityManager.find(Teacher.class, branch.teacherIds.get(t));
+            for (int month = 0; month < months; month++) {
+                YearMonth period = first.plusMonths(month);
+                BigDecimal revenue = BigDecimal.valueOf(teacherRevenue[t * months + month]);
+                BigDecimal share = revenue.multiply(teacher.getPaymentPercentage())
+                        .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+                BigDecimal amount = switch (teacher.getSalaryType()) {
+                    case FIXED -> teacher.getBaseSalary();
+                    case PERCENTAGE -> share;
+                    case MIXED -> teacher.getBaseSalary().add(share);
+                };
+                if (amount.signum() <= 0) {
+                    continue;
+                }
+
+                TeacherSalaryPayment salaryPayment = new TeacherSalaryPayment();
+                salaryPayment.setTeacher(teacher);
+                salaryPayment.setYear(period.getYear());
+                salaryPayment.setMonth(period.getMonthValue());
+                salaryPayment.setAmount(amount);
+                salaryPayment.setDescription(period + " oylik maosh");
+                salaryPayment.setBranch(branchRef);
+                entityManager.persist(salaryPayment);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void createExpenses(BranchData branch, Random random, YearMonth first) {
+        Branch branchRef = entityManager.getReference(Branch.class, branch.branchId);
+        List<Expense> expenses = new ArrayList<>();
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (int month = 0; month < months; month++) {
+            YearMonth period = first.plusMonths(month);
+            expenses.add(expense(branchRef, ExpenseCategory.RENT, "Ijara " + period,
+                    8_000_000L + 500_000L * random.nextInt(8)));
+            dates.add(period.atDay(1).atTime(10, 0));
+            expenses.add(expense(branchRef, ExpenseCategory.UTILITIES, "Kommunal xizmatlar " + period,
+                    600_000L + 50_000L * random.nextInt(10)));
+            dates.add(period.atDay(10).atTime(12, 0));
+
+            int misc = random.nextInt(5);
+            for (int i = 0; i < misc; i++) {
+                ExpenseCategory category = MISC_CATEGORIES[random.nextInt(MISC_CATEGORIES.length)];
+                expenses.add(expense(branchRef, category, category.name().toLowerCase() + " " + period,
+                        50_000L + 25_000L * random.nextInt(40)));
+                dates.add(timestamp(period, random));
+            }
+        }
+        expenses.forEach(entityManager::persist);
+        entityManager.flush();
+
+        List<Object[]> backdated = new ArrayList<>(expenses.size());
+        for (int i = 0; i < expenses.size(); i++) {
+            backdated.add(new Object[]{Timestamp.valueOf(dates.get(i)), expenses.get(i).getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE expenses SET created_at = ? WHERE id = ?", backdated);
+        entityManager.clear();
+    }
+
+    // Payments and salary payouts carry their month, so one set-based update backdates all of them
+    private void backdatePeriodRows() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    UPDATE payments
+                    SET created_at = make_timestamp(payment_year, payment_month,
+                                                    1 + (id % 25)::int, 9 + (id % 9)::int, (id % 60)::int, 0)""");
+            jdbcTemplate.update("""
+                    UPDATE teacher_salary_payments
+                    SET created_at = make_timestamp(year, month, 28, 16, 0, 0)""");
+        });
+    }
+
+    private static Expense expense(Branch branch, ExpenseCategory category, String description, long amount) {
+        Expense expense = new Expense();
+        expense.setBranch(branch);
+        expense.setCategory(category);
+        expense.setDescription(description);
+        expense.setAmount(BigDecimal.valueOf(amount));
+        return expense;
+    }
+
+    // Splits a total over the branches; the first branches absorb the remainder
+    private int share(int total, int branchIndex) {
+        return total / branchCount + (branchIndex < total % branchCount ? 1 : 0);
+    }
+
+    private static Timestamp timestamp(YearMonth period, Random random) {
+        return Timestamp.valueOf(period.atDay(1 + random.nextInt(period.lengthOfMonth()))
+                .atTime(8 + random.nextInt(11), random.nextInt(60)));
+    }
+
+    private static String phone(Random random) {
+        return String.format("+99890%07d", random.nextInt(10_000_000));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static final class BranchData {
+        private final Long branchId;
+        private final List<Long> teacherIds;
+        private final List<Enrollment> enrollments = new ArrayList<>();
+
+        private BranchData(Long branchId, List<Long> teacherIds) {
+            this.branchId = branchId;
+            this.teacherIds = teacherIds;
+        }
+    }
+
+    // Month indexes are relative to the first generated month; left is exclusive
+    private record Enrollment(Long studentId, Long groupId, Long courseId, int teacherIndex,
+                              BigDecimal price, int joined, int left) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.ogabek.istudy.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Span export. OTLP is configured by Spring Boot once MANAGEMENT_OTLP_TRACING_ENDPOINT is set
+ * (e.g. http://collector:4318/v1/traces); for local and test runs spans can also be written to the log.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,94 @@
+package com.ogabek.istudy.controller;
+
+import com.ogabek.istudy.analytics.PaymentAnalyticsService;
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
+import com.ogabek.istudy.dto.response.AnalyticsBreakdownDto;
+import com.ogabek.istudy.dto.response.CohortRetentionDto;
+import com.ogabek.istudy.security.BranchAccessControl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@Bulkhead(CostClass.REPORT)
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AnalyticsController {
+
+    private final PaymentAnalyticsService paymentAnalyticsService;
+    private final BranchAccessControl branchAccessControl;
+
+    @GetMapping("/collection/courses")
+    public ResponseEntity<List<AnalyticsBreakdownDto>> getCollectionByCourse(
+            @RequestParam Long branchId,
+            @RequestParam Integer year,
+            @RequestParam Integer month) {
+
+        if (!branchAccessControl.hasAccessToBranch(branchId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(paymentAnalyticsService.collectionByCourse(branchId, YearMonth.of(year, month)));
+    }
+
+    @GetMapping("/collection/teachers")
+    public ResponseEntity<List<AnalyticsBreakdownDto>> getCollectionByTeacher(
+            @RequestParam Long branchId,
+            @RequestParam Integer year,
+            @RequestParam Integer month) {
+
+        if (!branchAccessControl.hasAccessToBranch(branchId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(paymentAnalyticsService.collectionByTeacher(branchId, YearMonth.of(year, month)));
+    }
+
+    // from/to as yyyy-MM
+    @GetMapping("/collection/months")
+    public ResponseEntity<List<AnalyticsBreakdownDto>> getCollectionByMonth(
+            @RequestParam Long branchId,
+            @RequestParam YearMonth from,
+            @RequestParam YearMonth to) {
+
+        if (!branchAccessControl.hasAccessToBranch(branchId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(paymentAnalyticsService.collectionByMonth(branchId, from, to));
+    }
+
+    @GetMapping("/received")
+    public ResponseEntity<AnalyticsBreakdownDto> getReceivedBetween(
+            @RequestParam Long branchId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        if (!branchAccessControl.hasAccessToBranch(branchId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(paymentAnalyticsService.receivedBetween(branchId, startDate, endDate));
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<List<CohortRetentionDto>> getCohortRetention(
+            @RequestParam Long branchId,
+            @RequestParam YearMonth from,
+            @RequestParam YearMonth to) {
+
+        if (!branchAccessControl.hasAccessToBranch(branchId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(paymentAnalyticsService.cohortRetention(branchId, from, to));
+    }
+}
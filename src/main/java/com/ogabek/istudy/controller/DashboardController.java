@@ -1,10 +1,16 @@
 package com.ogabek.istudy.controller;
 
 import com.ogabek.istudy.dto.response.DashboardStatsDto;
+import com.ogabek.istudy.entity.Role;
+import com.ogabek.istudy.entity.User;
+import com.ogabek.istudy.security.BranchAccessControl;
 import com.ogabek.istudy.service.DashboardService;
+import com.ogabek.istudy.service.DataVersionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -13,10 +19,25 @@ import org.springframework.web.bind.annotation.*;
 public class DashboardController {
     
     private final DashboardService dashboardService;
+    private final DataVersionService dataVersionService;
+    private final BranchAccessControl branchAccessControl;
 
     @GetMapping("/stats")
-    public ResponseEntity<DashboardStatsDto> getDashboardStats() {
+    public ResponseEntity<DashboardStatsDto> getDashboardStats(WebRequest webRequest) {
+        // Super admin stats span all branches; a branch admin only sees their own branch
+        User user = branchAccessControl.getCurrentUser();
+        Long branchId = user.getRole() == Role.SUPER_ADMIN || user.getBranch() == null
+                ? null : user.getBranch().getId();
+
+        String etag = dataVersionService.etag("dashboard-stats", branchId, user.getRole());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         DashboardStatsDto stats = dashboardService.getDashboardStats();
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(stats);
     }
-}
\ No newline at end of file
+}
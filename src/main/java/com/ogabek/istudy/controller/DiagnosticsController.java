@@ -0,0 +1,45 @@
+package com.ogabek.istudy.controller;
+
+import com.ogabek.istudy.analytics.PaymentAnalyticsService;
+import com.ogabek.istudy.dto.response.AnalyticsSnapshotDto;
+import com.ogabek.istudy.dto.response.SqlFingerprintDto;
+import com.ogabek.istudy.metrics.SqlFingerprintRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/diagnostics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class DiagnosticsController {
+
+    private final SqlFingerprintRegistry sqlFingerprintRegistry;
+    private final PaymentAnalyticsService paymentAnalyticsService;
+
+    // Most expensive SQL statement shapes over the sliding window; sort = total | count | p95 | max | rows
+    @GetMapping("/sql")
+    public ResponseEntity<List<SqlFingerprintDto>> getTopSql(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "total") String sort) {
+        Comparator<SqlFingerprintDto> order = switch (sort) {
+            case "total" -> Comparator.comparingDouble(SqlFingerprintDto::getTotalMs);
+            case "count" -> Comparator.comparingLong(SqlFingerprintDto::getCount);
+            case "p95" -> Comparator.comparingDouble(SqlFingerprintDto::getP95Ms);
+            case "max" -> Comparator.comparingDouble(SqlFingerprintDto::getMaxMs);
+            case "rows" -> Comparator.comparingLong(SqlFingerprintDto::getRows);
+            default -> throw new RuntimeException("Noto'g'ri saralash: " + sort);
+        };
+
+        return ResponseEntity.ok(sqlFingerprintRegistry.top(Math.max(1, Math.min(limit, 200)), order.reversed()));
+    }
+
+    // Loaded analytics snapshots with their row count and estimated heap use
+    @GetMapping("/analytics")
+    public ResponseEntity<List<AnalyticsSnapshotDto>> getAnalyticsSnapshots() {
+        return ResponseEntity.ok(paymentAnalyticsService.snapshotStats());
+    }
+}
@@ -1,5 +1,7 @@
 package com.ogabek.istudy.controller;
 
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
 import com.ogabek.istudy.dto.request.CreateExpenseRequest;
 import com.ogabek.istudy.dto.response.ExpenseDto;
 import com.ogabek.istudy.security.BranchAccessControl;
@@ -163,6 +165,7 @@ public class ExpenseController {
         return ResponseEntity.ok(expense);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PostMapping
     public ResponseEntity<ExpenseDto> createExpense(@Valid @RequestBody CreateExpenseRequest request) {
         if (!branchAccessControl.hasAccessToBranch(request.getBranchId())) {
@@ -172,6 +175,7 @@ public class ExpenseController {
         return ResponseEntity.ok(expense);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<ExpenseDto> updateExpense(@PathVariable Long id,
                                                     @Valid @RequestBody CreateExpenseRequest request) {
@@ -182,6 +186,7 @@ public class ExpenseController {
         return ResponseEntity.ok(expense);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteExpense(@PathVariable Long id) {
         ExpenseDto expense = expenseService.getExpenseById(id);
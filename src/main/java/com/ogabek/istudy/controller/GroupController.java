@@ -4,12 +4,15 @@ import com.ogabek.istudy.dto.request.CreateGroupRequest;
 import com.ogabek.istudy.dto.response.GroupDto;
 import com.ogabek.istudy.dto.response.StudentDto;
 import com.ogabek.istudy.security.BranchAccessControl;
+import com.ogabek.istudy.service.DataVersionService;
 import com.ogabek.istudy.service.GroupService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,14 +24,22 @@ public class GroupController {
     
     private final GroupService groupService;
     private final BranchAccessControl branchAccessControl;
+    private final DataVersionService dataVersionService;
 
     @GetMapping
-    public ResponseEntity<List<GroupDto>> getGroupsByBranch(@RequestParam Long branchId) {
+    public ResponseEntity<List<GroupDto>> getGroupsByBranch(@RequestParam Long branchId, WebRequest webRequest) {
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        String etag = dataVersionService.etag("groups", branchId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<GroupDto> groups = groupService.getGroupsByBranch(branchId);
-        return ResponseEntity.ok(groups);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(groups);
     }
 
     @GetMapping("/{id}")
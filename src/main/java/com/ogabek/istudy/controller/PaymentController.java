@@ -1,20 +1,31 @@
 package com.ogabek.istudy.controller;
 
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
+import com.ogabek.istudy.dto.request.CreatePaymentBatchRequest;
 import com.ogabek.istudy.dto.request.CreatePaymentRequest;
+import com.ogabek.istudy.dto.request.PaymentLedgerFilter;
 import com.ogabek.istudy.dto.request.UpdatePaymentRequest;
 import com.ogabek.istudy.dto.response.PaymentDto;
+import com.ogabek.istudy.dto.response.PaymentPageDto;
 import com.ogabek.istudy.dto.response.UnpaidStudentDto;
 import com.ogabek.istudy.security.BranchAccessControl;
+import com.ogabek.istudy.service.DataVersionService;
+import com.ogabek.istudy.service.IdempotencyService;
 import com.ogabek.istudy.service.PaymentService;
 import com.ogabek.istudy.service.StudentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.security.Principal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -25,8 +36,11 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final StudentService studentService;
+    private final IdempotencyService idempotencyService;
     private final BranchAccessControl branchAccessControl;
+    private final DataVersionService dataVersionService;
 
+    @Bulkhead(CostClass.BULK)
     @GetMapping
     public ResponseEntity<List<PaymentDto>> getPaymentsByBranch(@RequestParam Long branchId) {
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
@@ -36,6 +50,17 @@ public class PaymentController {
         return ResponseEntity.ok(payments);
     }
 
+    // Keyset-paginated ledger with filters; pass nextCursor back as cursor to load the next page
+    @GetMapping("/ledger")
+    public ResponseEntity<PaymentPageDto> getPaymentLedger(@Valid PaymentLedgerFilter filter) {
+        if (!branchAccessControl.hasAccessToBranch(filter.getBranchId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        PaymentPageDto page = paymentService.getLedgerPage(filter);
+        return ResponseEntity.ok(page);
+    }
+
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/unpaid")
     public ResponseEntity<List<UnpaidStudentDto>> getUnpaidStudents(
             @RequestParam Long branchId,
@@ -49,6 +74,7 @@ public class PaymentController {
     }
 
     // NEW: Get payments by date range
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/by-date-range")
     public ResponseEntity<List<PaymentDto>> getPaymentsByDateRange(
             @RequestParam Long branchId,
@@ -64,6 +90,7 @@ public class PaymentController {
     }
 
     // NEW: Get payments by month/year
+    @Bulkhead(CostClass.BULK)
     @GetMapping("/by-month")
     public ResponseEntity<List<PaymentDto>> getPaymentsByMonth(
             @RequestParam Long branchId,
@@ -78,18 +105,29 @@ public class PaymentController {
         return ResponseEntity.ok(payments);
     }
 
-    // NEW: Get recent payments
+    // NEW: Get recent payments (pass beforeCreatedAt/beforeId of the last row to load more)
     @GetMapping("/recent")
     public ResponseEntity<List<PaymentDto>> getRecentPayments(
             @RequestParam Long branchId,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId,
+            WebRequest webRequest) {
 
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<PaymentDto> payments = paymentService.getRecentPayments(branchId, limit);
-        return ResponseEntity.ok(payments);
+        String etag = dataVersionService.etag("recent-payments", branchId, limit, beforeCreatedAt, beforeId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<PaymentDto> payments = paymentService.getRecentPayments(branchId, limit, beforeCreatedAt, beforeId);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(payments);
     }
 
     @GetMapping("/student/{studentId}")
@@ -111,15 +149,40 @@ public class PaymentController {
         return ResponseEntity.ok(payment);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PostMapping
-    public ResponseEntity<PaymentDto> createPayment(@Valid @RequestBody CreatePaymentRequest request) {
+    public ResponseEntity<PaymentDto> createPayment(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CreatePaymentRequest request,
+            Principal principal) {
         if (!branchAccessControl.hasAccessToBranch(request.getBranchId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        PaymentDto payment = paymentService.createPayment(request);
+
+        // Retries carrying the same key get the original response instead of a duplicate payment
+        PaymentDto payment;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            String scope = principal.getName() + "@" + request.getBranchId();
+            payment = idempotencyService.execute(scope, idempotencyKey.trim(), request, PaymentDto.class,
+                    () -> paymentService.createPayment(request));
+        } else {
+            payment = paymentService.createPayment(request);
+        }
         return ResponseEntity.ok(payment);
     }
 
+    // Several payments (multiple students and/or months) in one request and one transaction
+    @Bulkhead(CostClass.BULK)
+    @PostMapping("/batch")
+    public ResponseEntity<List<PaymentDto>> createPayments(@Valid @RequestBody CreatePaymentBatchRequest request) {
+        if (!branchAccessControl.hasAccessToBranch(request.getBranchId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        List<PaymentDto> payments = paymentService.createPayments(request.getBranchId(), request.getPayments());
+        return ResponseEntity.ok(payments);
+    }
+
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<PaymentDto> updatePaymentAmount(
             @PathVariable Long id,
@@ -135,11 +198,14 @@ public class PaymentController {
         return ResponseEntity.ok(updatedPayment);
     }
 
-    // NEW: Search payments by student name
+    // NEW: Search payments by student name, one page at a time (newest first)
     @GetMapping("/search")
     public ResponseEntity<List<PaymentDto>> searchPayments(
             @RequestParam Long branchId,
-            @RequestParam(required = false) String studentName) {
+            @RequestParam(required = false) String studentName,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+            @RequestParam(required = false) Long beforeId) {
 
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -147,14 +213,15 @@ public class PaymentController {
 
         List<PaymentDto> payments;
         if (studentName != null && !studentName.trim().isEmpty()) {
-            payments = paymentService.searchPaymentsByStudentName(branchId, studentName);
+            payments = paymentService.searchPaymentsByStudentName(branchId, studentName, limit, beforeCreatedAt, beforeId);
         } else {
-            payments = paymentService.getPaymentsByBranch(branchId);
+            payments = paymentService.getRecentPayments(branchId, limit, beforeCreatedAt, beforeId);
         }
 
         return ResponseEntity.ok(payments);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePayment(@PathVariable Long id) {
         PaymentDto payment = paymentService.getPaymentById(id);
@@ -1,5 +1,7 @@
 package com.ogabek.istudy.controller;
 
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
 import com.ogabek.istudy.security.BranchAccessControl;
 import com.ogabek.istudy.service.ReportService;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +14,7 @@ import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
+@Bulkhead(CostClass.REPORT)
 @RequestMapping("/api/reports")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -0,0 +1,31 @@
+package com.ogabek.istudy.controller;
+
+import com.ogabek.istudy.security.BranchAccessControl;
+import com.ogabek.istudy.service.BranchStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class StreamController {
+
+    private final BranchStreamService branchStreamService;
+    private final BranchAccessControl branchAccessControl;
+
+    // Live payment/expense/salary/enrollment events of a branch, delivered after commit
+    @GetMapping(value = "/branch/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBranch(@PathVariable Long id) {
+        if (!branchAccessControl.hasAccessToBranch(id)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(branchStreamService.subscribe(id));
+    }
+}
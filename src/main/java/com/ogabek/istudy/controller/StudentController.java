@@ -1,14 +1,19 @@
 package com.ogabek.istudy.controller;
 
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
 import com.ogabek.istudy.dto.request.CreateStudentRequest;
 import com.ogabek.istudy.dto.response.StudentDto;
 import com.ogabek.istudy.dto.response.UnpaidStudentDto;
 import com.ogabek.istudy.security.BranchAccessControl;
+import com.ogabek.istudy.service.DataVersionService;
 import com.ogabek.istudy.service.StudentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,16 +25,24 @@ public class StudentController {
 
     private final StudentService studentService;
     private final BranchAccessControl branchAccessControl;
+    private final DataVersionService dataVersionService;
 
+    // Not bulkheaded: the list is single-flighted and most polls end in a 304 before any query
     @GetMapping
     public ResponseEntity<List<StudentDto>> getStudentsByBranch(
             @RequestParam Long branchId,
             @RequestParam(required = false) Integer year,
-            @RequestParam(required = false) Integer month) {
+            @RequestParam(required = false) Integer month,
+            WebRequest webRequest) {
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
             return ResponseEntity.status(403).build();
         }
 
+        String etag = dataVersionService.etag("students", branchId, year, month);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         List<StudentDto> students;
         if (year != null && month != null) {
             students = studentService.getStudentsByBranch(branchId, year, month);
@@ -37,7 +50,10 @@ public class StudentController {
             students = studentService.getStudentsByBranch(branchId);
         }
 
-        return ResponseEntity.ok(students);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(students);
     }
 
     // NEW: Get students by group
@@ -57,6 +73,7 @@ public class StudentController {
         return ResponseEntity.ok(students);
     }
 
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/unpaid")
     public ResponseEntity<List<UnpaidStudentDto>> getUnpaidStudents(
             @RequestParam Long branchId,
@@ -87,6 +104,7 @@ public class StudentController {
         return ResponseEntity.ok(student);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PostMapping
     public ResponseEntity<StudentDto> createStudent(@Valid @RequestBody CreateStudentRequest request) {
         if (!branchAccessControl.hasAccessToBranch(request.getBranchId())) {
@@ -96,6 +114,7 @@ public class StudentController {
         return ResponseEntity.ok(student);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<StudentDto> updateStudent(@PathVariable Long id, @Valid @RequestBody CreateStudentRequest request) {
         // Check access to the branch in the request
@@ -113,6 +132,7 @@ public class StudentController {
         return ResponseEntity.ok(student);
     }
 
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteStudent(@PathVariable Long id) {
         StudentDto student = studentService.getStudentById(id);
@@ -169,6 +189,7 @@ public class StudentController {
         return ResponseEntity.ok(groups);
     }
 
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/statistics")
     public ResponseEntity<?> getStudentStatistics(@RequestParam Long branchId) {
         if (!branchAccessControl.hasAccessToBranch(branchId)) {
@@ -190,6 +211,7 @@ public class StudentController {
     }
 
     // NEW: Endpoint to get students with specific payment status
+    @Bulkhead(CostClass.BULK)
     @GetMapping("/by-payment-status")
     public ResponseEntity<List<StudentDto>> getStudentsByPaymentStatus(
             @RequestParam Long branchId,
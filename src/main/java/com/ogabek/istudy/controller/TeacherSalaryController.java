@@ -1,5 +1,7 @@
 package com.ogabek.istudy.controller;
 
+import com.ogabek.istudy.bulkhead.Bulkhead;
+import com.ogabek.istudy.bulkhead.CostClass;
 import com.ogabek.istudy.dto.request.CreateSalaryPaymentRequest;
 import com.ogabek.istudy.dto.response.SalaryCalculationDto;
 import com.ogabek.istudy.dto.response.TeacherSalaryHistoryDto;
@@ -45,6 +47,7 @@ public class TeacherSalaryController {
     }
 
     // Calculate salaries for all teachers in branch
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/calculate/branch/{branchId}")
     public ResponseEntity<List<SalaryCalculationDto>> calculateSalariesForBranch(
             @PathVariable Long branchId,
@@ -60,6 +63,7 @@ public class TeacherSalaryController {
     }
 
     // Create salary payment
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @PostMapping("/payments")
     public ResponseEntity<TeacherSalaryPaymentDto> createSalaryPayment(@Valid @RequestBody CreateSalaryPaymentRequest request) {
         if (!branchAccessControl.hasAccessToBranch(request.getBranchId())) {
@@ -112,6 +116,7 @@ public class TeacherSalaryController {
     }
 
     // Get salary history for teacher
+    @Bulkhead(CostClass.REPORT)
     @GetMapping("/history/teacher/{teacherId}")
     public ResponseEntity<List<TeacherSalaryHistoryDto>> getTeacherSalaryHistory(@PathVariable Long teacherId) {
         List<TeacherSalaryHistoryDto> history = teacherSalaryService.getTeacherSalaryHistory(teacherId);
@@ -134,6 +139,7 @@ public class TeacherSalaryController {
     }
 
     // Delete salary payment
+    @Bulkhead(CostClass.INTERACTIVE_WRITE)
     @DeleteMapping("/payments/{paymentId}")
     public ResponseEntity<Void> deleteSalaryPayment(@PathVariable Long paymentId) {
         // Note: In a real implementation, you'd fetch the specific payment to check branch access
@@ -0,0 +1,34 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.CourseDto;
+import com.ogabek.istudy.dto.response.GroupDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Read-only row for course lists; groups are attached from a separate GroupRow query
+public record CourseRow(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        int durationMonths,
+        Long branchId,
+        String branchName,
+        LocalDateTime createdAt) {
+
+    public CourseDto toDto(List<GroupDto> groups) {
+        CourseDto dto = new CourseDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setDescription(description);
+        dto.setPrice(price);
+        dto.setDurationMonths(durationMonths);
+        dto.setBranchId(branchId);
+        dto.setBranchName(branchName);
+        dto.setCreatedAt(createdAt);
+        dto.setGroups(groups);
+        return dto;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.ExpenseDto;
+import com.ogabek.istudy.entity.ExpenseCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only row for expense lists: only the columns ExpenseDto needs
+public record ExpenseRow(
+        Long id,
+        String description,
+        BigDecimal amount,
+        ExpenseCategory category,
+        Long branchId,
+        String branchName,
+        LocalDateTime createdAt) {
+
+    public ExpenseDto toDto() {
+        ExpenseDto dto = new ExpenseDto();
+        dto.setId(id);
+        dto.setDescription(description);
+        dto.setAmount(amount);
+        dto.setCategory(category != null ? category.name() : null);
+        dto.setBranchId(branchId);
+        dto.setBranchName(branchName);
+        dto.setCreatedAt(createdAt);
+        return dto;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.GroupDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Read-only row for group lists: only the columns GroupDto needs
+public record GroupRow(
+        Long id,
+        String name,
+        Long courseId,
+        String courseName,
+        BigDecimal coursePrice,
+        Long teacherId,
+        String teacherFirstName,
+        String teacherLastName,
+        Long branchId,
+        String branchName,
+        String startTime,
+        String endTime,
+        String daysOfWeek,
+        LocalDateTime createdAt) {
+
+    public GroupDto toDto() {
+        GroupDto dto = new GroupDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setCourseId(courseId);
+        dto.setCourseName(courseName);
+        if (teacherId != null) {
+            dto.setTeacherId(teacherId);
+            dto.setTeacherName(teacherFirstName + " " + teacherLastName);
+        }
+        dto.setBranchId(branchId);
+        dto.setBranchName(branchName);
+        dto.setStartTime(startTime);
+        dto.setEndTime(endTime);
+        if (daysOfWeek != null && !daysOfWeek.isEmpty()) {
+            dto.setDaysOfWeek(Arrays.asList(daysOfWeek.split(",")));
+        } else {
+            dto.setDaysOfWeek(new ArrayList<>());
+        }
+        dto.setCreatedAt(createdAt);
+        return dto;
+    }
+}
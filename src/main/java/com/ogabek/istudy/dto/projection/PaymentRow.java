@@ -0,0 +1,49 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.PaymentDto;
+import com.ogabek.istudy.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only row for payment lists: only the columns PaymentDto needs
+public record PaymentRow(
+        Long id,
+        Long studentId,
+        String studentFirstName,
+        String studentLastName,
+        Long courseId,
+        String courseName,
+        Long groupId,
+        String groupName,
+        BigDecimal amount,
+        int paymentYear,
+        int paymentMonth,
+        String description,
+        PaymentStatus status,
+        Long branchId,
+        String branchName,
+        LocalDateTime createdAt) {
+
+    public PaymentDto toDto() {
+        PaymentDto dto = new PaymentDto();
+        dto.setId(id);
+        if (studentId != null) {
+            dto.setStudentId(studentId);
+            dto.setStudentName(studentFirstName + " " + studentLastName);
+        }
+        dto.setCourseId(courseId);
+        dto.setCourseName(courseName);
+        dto.setGroupId(groupId);
+        dto.setGroupName(groupName);
+        dto.setAmount(amount);
+        dto.setPaymentYear(paymentYear);
+        dto.setPaymentMonth(paymentMonth);
+        dto.setDescription(description);
+        dto.setStatus(status != null ? status.name() : null);
+        dto.setBranchId(branchId);
+        dto.setBranchName(branchName);
+        dto.setCreatedAt(createdAt);
+        return dto;
+    }
+}
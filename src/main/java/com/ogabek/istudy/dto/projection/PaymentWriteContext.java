@@ -0,0 +1,17 @@
+package com.ogabek.istudy.dto.projection;
+
+/**
+ * Everything {@code PaymentService.createPayment} needs to validate a payment and build its
+ * response, read with a single query over {@code group_students}.
+ */
+public record PaymentWriteContext(
+        Long studentId,
+        String studentFirstName,
+        String studentLastName,
+        Long groupId,
+        String groupName,
+        Long courseId,
+        String courseName,
+        Long branchId,
+        String branchName) {
+}
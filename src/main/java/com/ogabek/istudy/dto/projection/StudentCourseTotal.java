@@ -0,0 +1,10 @@
+package com.ogabek.istudy.dto.projection;
+
+import java.math.BigDecimal;
+
+// Sum of one student's payments for one course, over a month or all time
+public record StudentCourseTotal(
+        Long studentId,
+        Long courseId,
+        BigDecimal totalPaid) {
+}
@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.StudentDto;
+
+import java.math.BigDecimal;
+
+// One (student, group) membership with the group details shown in StudentDto
+public record StudentGroupRow(
+        Long studentId,
+        Long groupId,
+        String groupName,
+        Long courseId,
+        String courseName,
+        BigDecimal coursePrice,
+        String teacherFirstName,
+        String teacherLastName) {
+
+    public StudentDto.GroupInfo toGroupInfo() {
+        String teacherName = teacherFirstName != null ? teacherFirstName + " " + teacherLastName : null;
+        return new StudentDto.GroupInfo(groupId, groupName, courseId, courseName, teacherName);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ogabek.istudy.dto.projection;
+
+import java.math.BigDecimal;
+
+// Sum of one student's payments into one group for a month
+public record StudentGroupTotal(
+        Long studentId,
+        Long groupId,
+        BigDecimal totalPaid) {
+}
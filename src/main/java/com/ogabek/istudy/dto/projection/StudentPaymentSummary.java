@@ -0,0 +1,12 @@
+package com.ogabek.istudy.dto.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Per-student payment aggregates for one month, plus the student's last payment date
+public record StudentPaymentSummary(
+        Long studentId,
+        BigDecimal totalPaidInMonth,
+        Long paymentsInMonth,
+        LocalDateTime lastPaymentDate) {
+}
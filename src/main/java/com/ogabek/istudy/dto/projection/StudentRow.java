@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.StudentDto;
+
+import java.time.LocalDateTime;
+
+// Read-only row for student lists; groups and payment status are filled in by StudentService
+public record StudentRow(
+        Long id,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String parentPhoneNumber,
+        Long branchId,
+        String branchName,
+        LocalDateTime createdAt) {
+
+    public StudentDto toDto() {
+        return new StudentDto(id, firstName, lastName, phoneNumber,
+                parentPhoneNumber, branchId, branchName, createdAt);
+    }
+}
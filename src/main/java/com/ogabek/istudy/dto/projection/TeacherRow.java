@@ -0,0 +1,38 @@
+package com.ogabek.istudy.dto.projection;
+
+import com.ogabek.istudy.dto.response.TeacherDto;
+import com.ogabek.istudy.entity.SalaryType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only row for teacher lists: only the columns TeacherDto needs
+public record TeacherRow(
+        Long id,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String email,
+        BigDecimal baseSalary,
+        BigDecimal paymentPercentage,
+        SalaryType salaryType,
+        Long branchId,
+        String branchName,
+        LocalDateTime createdAt) {
+
+    public TeacherDto toDto() {
+        TeacherDto dto = new TeacherDto();
+        dto.setId(id);
+        dto.setFirstName(firstName);
+        dto.setLastName(lastName);
+        dto.setPhoneNumber(phoneNumber);
+        dto.setEmail(email);
+        dto.setBaseSalary(baseSalary);
+        dto.setPaymentPercentage(paymentPercentage);
+        dto.setSalaryType(salaryType != null ? salaryType.name() : null);
+        dto.setBranchId(branchId);
+        dto.setBranchName(branchName);
+        dto.setCreatedAt(createdAt);
+        return dto;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter @Setter
+public class CreatePaymentBatchRequest {
+    @NotNull(message = "Filial majburiy")
+    private Long branchId;
+
+    // Several children and/or several months paid at once
+    @NotEmpty(message = "Kamida bitta to'lov kiritilishi kerak")
+    @Size(max = 100, message = "Bir martada 100 tadan ko'p to'lov kiritib bo'lmaydi")
+    private List<@Valid CreatePaymentRequest> payments = new ArrayList<>();
+}
@@ -0,0 +1,46 @@
+package com.ogabek.istudy.dto.request;
+
+import com.ogabek.istudy.entity.PaymentStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Query parameters of GET /api/payments/ledger; every filter except branchId is optional
+@Getter @Setter
+public class PaymentLedgerFilter {
+    @NotNull(message = "Filial majburiy")
+    private Long branchId;
+
+    private Long studentId;
+    private Long groupId;
+    private Long courseId;
+    private PaymentStatus status;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    // Payment period (paymentYear / paymentMonth)
+    private Integer year;
+
+    @Min(value = 1, message = "Oy 1-12 oralig'ida bo'lishi kerak")
+    @Max(value = 12, message = "Oy 1-12 oralig'ida bo'lishi kerak")
+    private Integer month;
+
+    // Opaque cursor from the previous page's nextCursor
+    private String cursor;
+
+    @Min(value = 1, message = "limit 1-200 oralig'ida bo'lishi kerak")
+    @Max(value = 200, message = "limit 1-200 oralig'ida bo'lishi kerak")
+    private int limit = 50;
+}
@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBreakdownDto {
+    private Long id;
+    private String name;
+    private BigDecimal collected;
+    private int payments;
+    // Fees due from current enrollments; null where it does not apply (e.g. per month)
+    private BigDecimal expected;
+    private Double collectionRate;
+}
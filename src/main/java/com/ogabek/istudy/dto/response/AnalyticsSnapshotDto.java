@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsSnapshotDto {
+    private Long branchId;
+    private int rows;
+    private long estimatedBytes;
+    // First payment month kept in memory; older months fell outside the row limit or retention
+    private String windowStart;
+    private boolean truncated;
+    private LocalDateTime loadedAt;
+}
@@ -0,0 +1,20 @@
+package com.ogabek.istudy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortRetentionDto {
+    // Month of the students' first payment, e.g. "2025-01"
+    private String cohort;
+    private int students;
+    // Students of the cohort paying k months after their first month; index 0 = cohort size
+    private List<Integer> retained;
+}
@@ -17,6 +17,8 @@ public class PaymentDto {
     private Long groupId; // NEW
     private String groupName; // NEW
     private BigDecimal amount;
+    private int paymentYear;
+    private int paymentMonth;
     private String description;
     private String status;
     private Long branchId;
@@ -0,0 +1,22 @@
+package com.ogabek.istudy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPageDto {
+    private List<PaymentDto> items;
+    private String nextCursor; // null on the last page
+    private boolean hasMore;
+
+    // Totals of this page only
+    private int pageCount;
+    private BigDecimal pageTotal;
+}
@@ -0,0 +1,25 @@
+package com.ogabek.istudy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlFingerprintDto {
+    private String fingerprint;
+    private long count;
+    private double totalMs;
+    private double avgMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double maxMs;
+    private long rows;
+    // Service method -> executions, most frequent first
+    private Map<String, Long> callers;
+}
@@ -6,18 +6,23 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "branches")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.branch")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Branch {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "branches_seq")
+    @SequenceGenerator(name = "branches_seq", sequenceName = "branches_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -0,0 +1,6 @@
+package com.ogabek.istudy.entity;
+
+// Entity that belongs to a single branch; used to attribute writes to that branch
+public interface BranchScoped {
+    Branch getBranch();
+}
@@ -10,9 +10,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "expenses")
 @Data
-public class Expense {
+public class Expense implements BranchScoped {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+    @SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
     private Long id;
 
     private String description;
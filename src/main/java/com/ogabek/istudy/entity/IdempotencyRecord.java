@@ -0,0 +1,43 @@
+package com.ogabek.istudy.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "ux_idempotency_keys_scope_key", columnList = "scope, idempotency_key", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_seq", allocationSize = 50)
+    private Long id;
+
+    // Username + "@" + branch id the key belongs to; null only on rows from before scoping, which expire within the TTL
+    @Column(length = 320)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, used to reject a key reused for a different request
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // Serialized response returned to replayed requests
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
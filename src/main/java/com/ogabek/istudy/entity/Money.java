@@ -0,0 +1,63 @@
+package com.ogabek.istudy.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An UZS amount held as a whole number of tiyin (1/100 so'm) in a {@code long}.
+ * Used for in-memory aggregation: adding two amounts is one overflow-checked long addition instead
+ * of a new BigDecimal. Conversion from BigDecimal is exact; an amount with more than two decimal
+ * places is rejected rather than rounded. Entity columns stay BigDecimal; convert at the
+ * repository and DTO edges.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    public static Money of(BigDecimal amount) {
+        // setScale returns the same instance for the usual scale-2 column values
+        return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).scaleByPowerOfTen(SCALE).longValueExact());
+    }
+
+    // Sums over no rows and optional columns come back as null
+    public static Money ofNullable(BigDecimal amount) {
+        return amount != null ? of(amount) : ZERO;
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    // Remaining-amount style clamping: negative results count as nothing left
+    public Money positiveOrZero() {
+        return minorUnits > 0 ? this : ZERO;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    // Zero renders as "0" like the BigDecimal.ZERO defaults it replaces; other amounts keep the column scale
+    public BigDecimal toBigDecimal() {
+        return minorUnits == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
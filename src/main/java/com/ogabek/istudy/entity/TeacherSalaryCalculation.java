@@ -14,9 +14,10 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class TeacherSalaryCalculation {
+public class TeacherSalaryCalculation implements BranchScoped {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "teacher_salary_calculations_seq")
+    @SequenceGenerator(name = "teacher_salary_calculations_seq", sequenceName = "teacher_salary_calculations_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
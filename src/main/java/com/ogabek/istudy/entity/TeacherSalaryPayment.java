@@ -14,9 +14,10 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class TeacherSalaryPayment {
+public class TeacherSalaryPayment implements BranchScoped {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "teacher_salary_payments_seq")
+    @SequenceGenerator(name = "teacher_salary_payments_seq", sequenceName = "teacher_salary_payments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,15 @@
+package com.ogabek.istudy.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change notification for one branch, published inside the writing transaction and delivered to
+ * /api/stream subscribers only after it commits. {@code data} is the response DTO of the change
+ * (null for deletes), so clients can patch their lists without refetching.
+ */
+public record BranchEvent(BranchEventType type, Long branchId, Long entityId, Object data, LocalDateTime occurredAt) {
+
+    public static BranchEvent of(BranchEventType type, Long branchId, Long entityId, Object data) {
+        return new BranchEvent(type, branchId, entityId, data, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,12 @@
+package com.ogabek.istudy.event;
+
+public enum BranchEventType {
+    PAYMENT_CREATED,
+    PAYMENT_UPDATED,
+    PAYMENT_DELETED,
+    EXPENSE_CREATED,
+    SALARY_PAID,
+    STUDENT_ENROLLED,
+    // Sent instead of the dropped events when a subscriber falls behind; the client should reload
+    RESYNC
+}
@@ -0,0 +1,14 @@
+package com.ogabek.istudy.exception;
+
+import lombok.Getter;
+
+// Request rejected by admission control; answered with 503 and Retry-After
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,105 @@
+package com.ogabek.istudy.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Size bucket of the branch a request works on, used as a low-cardinality metric tag so a latency
+ * regression can be tied to branch growth without tagging every branch id.
+ * The branch comes from the {@code branchId} request parameter or a {@code branchId}/{@code id}
+ * path variable under /branch/; the student count per branch is cached for ten minutes.
+ * Counted with plain JDBC so the lookup is not itself a timed repository call.
+ */
+@Component
+@Slf4j
+public class BranchBucketResolver {
+    public static final String NONE = "none";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, String> buckets = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    public BranchBucketResolver(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public String currentBucket() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return bucket(attributes.getRequest());
+        }
+        return NONE;
+    }
+
+    public String bucket(HttpServletRequest request) {
+        Long branchId = branchId(request);
+        if (branchId == null) {
+            return NONE;
+        }
+
+        String bucket = buckets.getIfPresent(branchId);
+        if (bucket == null) {
+            bucket = load(branchId);
+            buckets.put(branchId, bucket);
+        }
+        return bucket;
+    }
+
+    private String load(Long branchId) {
+        try {
+            Long students = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM students WHERE branch_id = ?", Long.class, branchId);
+            return bucketFor(students != null ? students : 0L);
+        } catch (DataAccessException e) {
+            log.debug("Could not size branch {}: {}", branchId, e.getMessage());
+            return "unknown";
+        }
+    }
+
+    private static String bucketFor(long students) {
+        if (students < 100) {
+            return "xs";
+        }
+        if (students < 500) {
+            return "s";
+        }
+        if (students < 2_000) {
+            return "m";
+        }
+        return "l";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long branchId(HttpServletRequest request) {
+        String value = request.getParameter("branchId");
+        if (value == null) {
+            Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            if (attribute instanceof Map<?, ?> variables) {
+                value = ((Map<String, String>) variables).get("branchId");
+                if (value == null && request.getRequestURI().contains("/branch/")) {
+                    value = ((Map<String, String>) variables).get("id");
+                }
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.stereotype.Component;
+
+// Adds the branch size bucket to spring.data.repository.invocations
+@Component
+@RequiredArgsConstructor
+public class BranchRepositoryTagsProvider extends DefaultRepositoryTagsProvider {
+    private final BranchBucketResolver branchBucketResolver;
+
+    @Override
+    public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+        return Tags.of(super.repositoryTags(invocation))
+                .and("branch_bucket", branchBucketResolver.currentBucket());
+    }
+}
@@ -0,0 +1,21 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+// Adds the branch size bucket to http.server.requests
+@Component
+@RequiredArgsConstructor
+public class BranchRequestObservationConvention extends DefaultServerRequestObservationConvention {
+    private final BranchBucketResolver branchBucketResolver;
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of("branch_bucket", branchBucketResolver.bucket(context.getCarrier())));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * One trace span per Spring Data repository call, e.g. {@code PaymentRepository.findByBranchId}.
+ * Span only: repository timings are already recorded as spring.data.repository.invocations.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryTracingAspect {
+    private final Tracer tracer;
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> repository = joinPoint.getThis() != null
+                ? repositoryInterface(joinPoint.getThis().getClass())
+                : joinPoint.getSignature().getDeclaringType();
+        Span span = tracer.nextSpan()
+                .name(repository.getSimpleName() + "." + joinPoint.getSignature().getName())
+                .tag("repository", repository.getSimpleName())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    // The application's own repository interface rather than CrudRepository for inherited methods
+    private static Class<?> repositoryInterface(Class<?> proxyClass) {
+        for (Class<?> candidate : proxyClass.getInterfaces()) {
+            if (candidate.getPackageName().startsWith("com.ogabek.istudy")) {
+                return candidate;
+            }
+        }
+        return proxyClass;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ogabek.istudy.metrics;
+
+// The service method currently running on this thread, set by ServiceMetricsAspect
+public final class ServiceCallSite {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ServiceCallSite() {
+    }
+
+    // Returns the previous call site, to be passed back to exit()
+    static String enter(String callSite) {
+        String previous = CURRENT.get();
+        CURRENT.set(callSite);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observes every public method of the *Service beans as {@code istudy.service}: a timer tagged by
+ * class, method, branch bucket and error, and a trace span named after the method. Also records the
+ * method as the call site of the SQL it issues.
+ * The in-memory bookkeeping services called on every request are left out.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+    private final ObservationRegistry observationRegistry;
+    private final BranchBucketResolver branchBucketResolver;
+
+    @Around("execution(public * com.ogabek.istudy.service.*Service.*(..))"
+            + " && !within(com.ogabek.istudy.service.DataVersionService)"
+            + " && !within(com.ogabek.istudy.service.LedgerVersionService)"
+            + " && !within(com.ogabek.istudy.service.SingleFlightService)"
+            + " && !within(com.ogabek.istudy.service.BranchStreamService)")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        String callSite = className + "." + methodName;
+
+        Observation observation = Observation.createNotStarted("istudy.service", observationRegistry)
+                .contextualName(callSite)
+                .lowCardinalityKeyValue("class", className)
+                .lowCardinalityKeyValue("method", methodName)
+                .lowCardinalityKeyValue("branch_bucket", branchBucketResolver.currentBucket())
+                .start();
+        String previousCallSite = ServiceCallSite.enter(callSite);
+        try (Observation.Scope scope = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            ServiceCallSite.exit(previousCallSite);
+            if (previousCallSite == null) {
+                // Outermost service call: covers scheduled and async work that never passes the request filter
+                SqlStatisticsListener.clearThread();
+            }
+            observation.stop();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ogabek.istudy.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ogabek.istudy.dto.response.SqlFingerprintDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding-window statistics per SQL fingerprint: executions, JDBC time with p50/p95/max, rows read
+ * and the service methods issuing the statement. The window is a ring of one-minute slices; a slice
+ * is replaced by CAS when its minute comes round again, and recording only touches adders and
+ * atomic arrays, so no lock is taken on the JDBC path.
+ * Percentiles come from log-linear buckets (four per power of two) and are accurate to about 20%.
+ */
+@Component
+public class SqlFingerprintRegistry {
+    private static final int BUCKETS = 112;
+    private static final int MAX_FINGERPRINTS_PER_SLICE = 2_000;
+    private static final int MAX_CALLERS = 16;
+    private static final String OTHER = "(other)";
+    private static final String UNKNOWN_CALLER = "(no service)";
+
+    private final AtomicReferenceArray<Slice> slices;
+    private final Cache<String, String> fingerprints = Caffeine.newBuilder()
+            .maximumSize(5_000)
+            .build();
+
+    public SqlFingerprintRegistry(@Value("${app.sql-stats.window-minutes:15}") int windowMinutes) {
+        this.slices = new AtomicReferenceArray<>(windowMinutes);
+    }
+
+    public String fingerprint(String sql) {
+        return fingerprints.get(sql, SqlStatistics::fingerprint);
+    }
+
+    // Returns the entry so rows read from the statement's result set can be added to it
+    public Entry record(String fingerprint, long elapsedNanos, String caller) {
+        ConcurrentMap<String, Entry> entries = currentSlice().entries;
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            String key = entries.size() < MAX_FINGERPRINTS_PER_SLICE ? fingerprint : OTHER;
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        entry.record(elapsedNanos / 1_000, caller != null ? caller : UNKNOWN_CALLER);
+        return entry;
+    }
+
+    public List<SqlFingerprintDto> top(int limit, Comparator<SqlFingerprintDto> order) {
+        long oldestMinute = currentMinute() - slices.length() + 1;
+        Map<String, Snapshot> merged = new HashMap<>();
+        for (int i = 0; i < slices.length(); i++) {
+            Slice slice = slices.get(i);
+            if (slice != null && slice.minute >= oldestMinute) {
+                slice.entries.forEach((fingerprint, entry) ->
+                        merged.computeIfAbsent(fingerprint, k -> new Snapshot()).add(entry));
+            }
+        }
+
+        return merged.entrySet().stream()
+                .map(e -> e.getValue().toDto(e.getKey()))
+                .sorted(order)
+                .limit(limit)
+                .toList();
+    }
+
+    private Slice currentSlice() {
+        long minute = currentMinute();
+        int index = (int) (minute % slices.length());
+        while (true) {
+            Slice slice = slices.get(index);
+            if (slice != null && slice.minute == minute) {
+                return slice;
+            }
+            Slice fresh = new Slice(minute);
+            if (slices.compareAndSet(index, slice, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    static int bucket(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exponent - 2)) & 3);
+        return Math.min((exponent - 1) * 4 + sub, BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket;
+        }
+        int exponent = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return ((5L + sub) << (exponent - 2)) - 1;
+    }
+
+    private record Slice(long minute, ConcurrentMap<String, Entry> entries) {
+        Slice(long minute) {
+            this(minute, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static final class Entry {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final ConcurrentMap<String, LongAdder> callers = new ConcurrentHashMap<>();
+
+        private void record(long micros, String caller) {
+            count.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulate(micros);
+            buckets.incrementAndGet(bucket(micros));
+
+            LongAdder callerCount = callers.get(caller);
+            if (callerCount == null) {
+                callerCount = callers.computeIfAbsent(callers.size() < MAX_CALLERS ? caller : OTHER, k -> new LongAdder());
+            }
+            callerCount.increment();
+        }
+
+        void addRow() {
+            rows.increment();
+        }
+    }
+
+    private static final class Snapshot {
+        private long count;
+        private long totalMicros;
+        private long rows;
+        private long maxMicros;
+        private final long[] buckets = new long[BUCKETS];
+        private final Map<String, Long> callers = new HashMap<>();
+
+        private void add(Entry entry) {
+            count += entry.count.sum();
+            totalMicros += entry.totalMicros.sum();
+            rows += entry.rows.sum();
+            maxMicros = Math.max(maxMicros, entry.maxMicros.get());
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] += entry.buckets.get(i);
+            }
+            entry.callers.forEach((caller, calls) -> callers.merge(caller, calls.sum(), Long::sum));
+        }
+
+        private SqlFingerprintDto toDto(String fingerprint) {
+            Map<String, Long> topCallers = new LinkedHashMap<>();
+            callers.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(e -> topCallers.put(e.getKey(), e.getValue()));
+
+            return new SqlFingerprintDto(fingerprint, count, millis(totalMicros),
+                    count > 0 ? millis(totalMicros / count) : 0,
+                    millis(percentile(0.50)), millis(percentile(0.95)), millis(maxMicros),
+                    rows, topCallers);
+        }
+
+        private long percentile(double quantile) {
+            long total = 0;
+            for (long bucketCount : buckets) {
+                total += bucketCount;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperBound(i), maxMicros);
+                }
+            }
+            return 0;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1_000.0;
+        }
+    }
+}
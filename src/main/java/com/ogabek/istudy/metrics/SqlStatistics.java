@@ -0,0 +1,104 @@
+package com.ogabek.istudy.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC statement, row and time counters for the unit of work running on the current thread
+ * (an HTTP request, or a test method with a query budget). Scopes nest: when a scope ends its
+ * counts are added to the enclosing one.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(?:\\s*,\\s*\\?)+\\)");
+
+    private final SqlStatistics parent;
+    private final Map<String, Integer> fingerprints = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long elapsedNanos;
+
+    private SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    // Ends the innermost scope and returns it
+    public static SqlStatistics stop() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return null;
+        }
+        if (statistics.parent != null) {
+            statistics.parent.add(statistics);
+            CURRENT.set(statistics.parent);
+        } else {
+            CURRENT.remove();
+        }
+        return statistics;
+    }
+
+    void recordStatement(String fingerprint, long elapsedNanos) {
+        statements++;
+        this.elapsedNanos += elapsedNanos;
+        fingerprints.merge(fingerprint, 1, Integer::sum);
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMs() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    // The statement shape executed most often, e.g. the per-row query of an N+1 loop
+    public Map.Entry<String, Integer> mostRepeated() {
+        return fingerprints.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+
+    public String summary() {
+        Map.Entry<String, Integer> repeated = mostRepeated();
+        String summary = statements + " statements, " + rows + " rows, " + getElapsedMs() + " ms";
+        return repeated == null ? summary : summary + "; most repeated (" + repeated.getValue() + "x): " + repeated.getKey();
+    }
+
+    private void add(SqlStatistics child) {
+        statements += child.statements;
+        rows += child.rows;
+        elapsedNanos += child.elapsedNanos;
+        child.fingerprints.forEach((fingerprint, count) -> fingerprints.merge(fingerprint, count, Integer::sum));
+    }
+
+    // Literals and IN-list lengths removed so the same query with different arguments has one fingerprint
+    static String fingerprint(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return IN_LIST.matcher(normalized).replaceAll("(?)");
+    }
+}
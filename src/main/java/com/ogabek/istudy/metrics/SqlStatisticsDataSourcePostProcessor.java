@@ -0,0 +1,36 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.tracing.Tracer;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Wraps the application DataSource in a datasource-proxy that reports to SqlStatistics and the fingerprint registry
+@Component
+public class SqlStatisticsDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SqlFingerprintRegistry> fingerprintRegistry;
+    private final ObjectProvider<Tracer> tracer;
+
+    public SqlStatisticsDataSourcePostProcessor(ObjectProvider<SqlFingerprintRegistry> fingerprintRegistry,
+                                                ObjectProvider<Tracer> tracer) {
+        this.fingerprintRegistry = fingerprintRegistry;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            SqlStatisticsListener listener = new SqlStatisticsListener(fingerprintRegistry.getObject(), tracer);
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name("istudy")
+                    .listener(listener)
+                    .methodListener(listener)
+                    .proxyResultSet()
+                    .build();
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ogabek.istudy.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements, rows read and JDBC time of each API request. A request above the
+ * statement budget is logged with its most repeated statement, which points straight at an N+1 loop.
+ * Outside the prod profile the counts are also returned as X-SQL-* response headers (the body is
+ * buffered for that, so streaming endpoints are skipped).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private final int statementBudget;
+    private final boolean exposeHeaders;
+
+    public SqlStatisticsFilter(@Value("${app.sql-stats.statement-budget:50}") int statementBudget, Environment environment) {
+        this.statementBudget = statementBudget;
+        this.exposeHeaders = !environment.acceptsProfiles(Profiles.of("prod"));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean buffered = exposeHeaders && !request.getRequestURI().startsWith("/api/stream");
+        ContentCachingResponseWrapper responseWrapper = buffered ? new ContentCachingResponseWrapper(response) : null;
+
+        SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, buffered ? responseWrapper : response);
+        } finally {
+            SqlStatisticsListener.clearThread();
+            SqlStatistics statistics = SqlStatistics.stop();
+            if (statistics != null && statistics.getStatements() > statementBudget) {
+                log.warn("{} {} exceeded SQL budget of {}: {}", request.getMethod(), request.getRequestURI(),
+                        statementBudget, statistics.summary());
+            }
+            if (buffered) {
+                if (statistics != null) {
+                    responseWrapper.setHeader("X-SQL-Statements", String.valueOf(statistics.getStatements()));
+                    responseWrapper.setHeader("X-SQL-Rows", String.valueOf(statistics.getRows()));
+                    responseWrapper.setHeader("X-SQL-Time-Ms", String.valueOf(statistics.getElapsedMs()));
+                }
+                responseWrapper.copyBodyToResponse();
+            }
+        }
+    }
+}
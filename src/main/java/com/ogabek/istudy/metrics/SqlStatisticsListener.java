@@ -0,0 +1,113 @@
+package com.ogabek.istudy.metrics;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Feeds the datasource-proxy callbacks into the SqlStatistics scope of the current thread, the
+ * fingerprint registry and a {@code jdbc.query} trace span per execution.
+ * Rows read are attributed to the last statement executed on the thread; that reference is dropped
+ * when the request or outermost service call ends, so a pooled thread does not keep it.
+ */
+public class SqlStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+    private static final ThreadLocal<InFlight> IN_FLIGHT = new ThreadLocal<>();
+    private static final ThreadLocal<SqlFingerprintRegistry.Entry> LAST_STATEMENT = new ThreadLocal<>();
+
+    private final SqlFingerprintRegistry fingerprintRegistry;
+    private final ObjectProvider<Tracer> tracerProvider;
+    private volatile Tracer tracer;
+
+    public SqlStatisticsListener(SqlFingerprintRegistry fingerprintRegistry, ObjectProvider<Tracer> tracerProvider) {
+        this.fingerprintRegistry = fingerprintRegistry;
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Span span = tracer().nextSpan().name("jdbc.query").start();
+        IN_FLIGHT.set(new InFlight(System.nanoTime(), span));
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        InFlight inFlight = IN_FLIGHT.get();
+        IN_FLIGHT.remove();
+        if (inFlight == null) {
+            return;
+        }
+        if (queryInfoList.isEmpty()) {
+            inFlight.span().end();
+            return;
+        }
+
+        // A batch is reported once per statement text, however many parameter sets it carries
+        long elapsedPerQuery = (System.nanoTime() - inFlight.startedAt()) / queryInfoList.size();
+        SqlStatistics statistics = SqlStatistics.current();
+        String caller = ServiceCallSite.current();
+        for (QueryInfo queryInfo : queryInfoList) {
+            String fingerprint = fingerprintRegistry.fingerprint(queryInfo.getQuery());
+            LAST_STATEMENT.set(fingerprintRegistry.record(fingerprint, elapsedPerQuery, caller));
+            if (statistics != null) {
+                statistics.recordStatement(fingerprint, elapsedPerQuery);
+            }
+        }
+
+        Span span = inFlight.span();
+        span.tag("db.statement", fingerprintRegistry.fingerprint(queryInfoList.get(0).getQuery()));
+        if (execInfo.isBatch()) {
+            span.tag("db.batch_size", String.valueOf(execInfo.getBatchSize()));
+        }
+        if (execInfo.getThrowable() != null) {
+            span.error(execInfo.getThrowable());
+        }
+        span.end();
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlFingerprintRegistry.Entry statement = LAST_STATEMENT.get();
+            if (statement != null) {
+                statement.addRow();
+            }
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.recordRow();
+            }
+        }
+    }
+
+    // Called by SqlStatisticsFilter and ServiceMetricsAspect when their unit of work ends
+    static void clearThread() {
+        LAST_STATEMENT.remove();
+        IN_FLIGHT.remove();
+    }
+
+    // Resolved on first use: the DataSource is wrapped before the tracing beans exist
+    private Tracer tracer() {
+        Tracer current = tracer;
+        if (current == null) {
+            current = tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+            tracer = current;
+        }
+        return current;
+    }
+
+    private record InFlight(long startedAt, Span span) {
+    }
+}
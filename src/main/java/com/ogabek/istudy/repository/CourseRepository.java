@@ -1,5 +1,6 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.CourseRow;
 import com.ogabek.istudy.entity.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -24,6 +25,13 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Query("SELECT c FROM Course c LEFT JOIN FETCH c.branch WHERE c.branch.id = :branchId ORDER BY c.name")
     List<Course> findByBranchIdOrderByNameWithBranch(@Param("branchId") Long branchId);
 
+    // Read-only rows for the branch course list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.CourseRow(" +
+            "c.id, c.name, c.description, c.price, c.durationMonths, b.id, b.name, c.createdAt) " +
+            "FROM Course c JOIN c.branch b " +
+            "WHERE c.branch.id = :branchId ORDER BY c.name")
+    List<CourseRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
     // Keep existing methods for backward compatibility
     List<Course> findByBranchId(Long branchId);
     List<Course> findByBranchIdAndNameContainingIgnoreCase(Long branchId, String name);
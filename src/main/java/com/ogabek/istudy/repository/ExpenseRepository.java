@@ -1,5 +1,6 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.ExpenseRow;
 import com.ogabek.istudy.entity.Expense;
 import com.ogabek.istudy.entity.ExpenseCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -14,6 +15,13 @@ import java.util.List;
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findByBranchId(Long branchId);
+
+    // Read-only rows for the branch expense list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.ExpenseRow(" +
+           "e.id, e.description, e.amount, e.category, b.id, b.name, e.createdAt) " +
+           "FROM Expense e JOIN e.branch b WHERE e.branch.id = :branchId")
+    List<ExpenseRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
     List<Expense> findByBranchIdAndCategory(Long branchId, ExpenseCategory category);
     List<Expense> findByBranchIdAndCreatedAtBetween(Long branchId, LocalDateTime start, LocalDateTime end);
     
@@ -1,11 +1,15 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.GroupRow;
+import com.ogabek.istudy.dto.projection.PaymentWriteContext;
+import com.ogabek.istudy.dto.projection.StudentGroupRow;
 import com.ogabek.istudy.entity.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +24,37 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
             "WHERE g.branch.id = :branchId")
     List<Group> findByBranchIdWithAllRelations(@Param("branchId") Long branchId);
 
+    // Read-only rows for the branch group list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.GroupRow(" +
+            "g.id, g.name, c.id, c.name, c.price, t.id, t.firstName, t.lastName, b.id, b.name, " +
+            "g.startTime, g.endTime, g.daysOfWeek, g.createdAt) " +
+            "FROM Group g JOIN g.course c LEFT JOIN g.teacher t JOIN g.branch b " +
+            "WHERE g.branch.id = :branchId")
+    List<GroupRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
+    // Read-only rows for every group of the branch's courses (course list)
+    @Query("SELECT new com.ogabek.istudy.dto.projection.GroupRow(" +
+            "g.id, g.name, c.id, c.name, c.price, t.id, t.firstName, t.lastName, b.id, b.name, " +
+            "g.startTime, g.endTime, g.daysOfWeek, g.createdAt) " +
+            "FROM Group g JOIN g.course c LEFT JOIN g.teacher t JOIN g.branch b " +
+            "WHERE c.branch.id = :branchId")
+    List<GroupRow> findRowsByCourseBranchId(@Param("branchId") Long branchId);
+
+    // Read-only rows for the groups of one course
+    @Query("SELECT new com.ogabek.istudy.dto.projection.GroupRow(" +
+            "g.id, g.name, c.id, c.name, c.price, t.id, t.firstName, t.lastName, b.id, b.name, " +
+            "g.startTime, g.endTime, g.daysOfWeek, g.createdAt) " +
+            "FROM Group g JOIN g.course c LEFT JOIN g.teacher t JOIN g.branch b " +
+            "WHERE c.id = :courseId")
+    List<GroupRow> findRowsByCourseId(@Param("courseId") Long courseId);
+
+    // (student, group) memberships of every student of a branch, for the student list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentGroupRow(" +
+            "s.id, g.id, g.name, c.id, c.name, c.price, t.firstName, t.lastName) " +
+            "FROM Group g JOIN g.students s JOIN g.course c LEFT JOIN g.teacher t " +
+            "WHERE s.branch.id = :branchId")
+    List<StudentGroupRow> findStudentGroupRowsByBranchId(@Param("branchId") Long branchId);
+
     // Fetch single group with all related entities
     @Query("SELECT g FROM Group g " +
             "LEFT JOIN FETCH g.course " +
@@ -46,6 +81,13 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
             "WHERE g.teacher.id = :teacherId")
     List<Group> findByTeacherIdWithRelations(@Param("teacherId") Long teacherId);
 
+    // Teacher's groups with their students, for salary calculation
+    @Query("SELECT g FROM Group g " +
+            "LEFT JOIN FETCH g.course " +
+            "LEFT JOIN FETCH g.students " +
+            "WHERE g.teacher.id = :teacherId")
+    List<Group> findByTeacherIdWithStudents(@Param("teacherId") Long teacherId);
+
     // Fetch groups by course with relations
     @Query("SELECT g FROM Group g " +
             "LEFT JOIN FETCH g.course " +
@@ -73,6 +115,27 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     List<Group> findGroupsWithUnpaidStudentsWithRelations(@Param("branchId") Long branchId,
                                                           @Param("year") int year, @Param("month") int month);
 
+    // Fetch several groups with their course in one query (batch payments)
+    @Query("SELECT g FROM Group g " +
+            "LEFT JOIN FETCH g.course " +
+            "WHERE g.id IN :groupIds")
+    List<Group> findAllByIdWithCourse(@Param("groupIds") Collection<Long> groupIds);
+
+    // (groupId, studentId) membership pairs for the given groups and students
+    @Query("SELECT g.id, s.id FROM Group g JOIN g.students s " +
+            "WHERE g.id IN :groupIds AND s.id IN :studentIds")
+    List<Object[]> findMemberships(@Param("groupIds") Collection<Long> groupIds,
+                                   @Param("studentIds") Collection<Long> studentIds);
+
+    // Membership check plus the names needed for a payment response, in one query.
+    // Empty when the student is not in the group (or either does not exist).
+    @Query("SELECT new com.ogabek.istudy.dto.projection.PaymentWriteContext(" +
+            "s.id, s.firstName, s.lastName, g.id, g.name, c.id, c.name, b.id, b.name) " +
+            "FROM Group g JOIN g.students s JOIN g.course c JOIN g.branch b " +
+            "WHERE g.id = :groupId AND s.id = :studentId")
+    Optional<PaymentWriteContext> findPaymentWriteContext(@Param("groupId") Long groupId,
+                                                         @Param("studentId") Long studentId);
+
     // Keep original methods for backward compatibility (may cause lazy loading issues)
     List<Group> findByBranchId(Long branchId);
     List<Group> findByTeacherId(Long teacherId);
@@ -0,0 +1,24 @@
+package com.ogabek.istudy.repository;
+
+import com.ogabek.istudy.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord ir WHERE ir.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord ir WHERE ir.scope = :scope AND ir.idempotencyKey = :key AND ir.expiresAt < :now")
+    int deleteExpiredKey(@Param("scope") String scope, @Param("key") String key, @Param("now") LocalDateTime now);
+}
@@ -1,7 +1,12 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.PaymentRow;
+import com.ogabek.istudy.dto.projection.StudentCourseTotal;
+import com.ogabek.istudy.dto.projection.StudentGroupTotal;
+import com.ogabek.istudy.dto.projection.StudentPaymentSummary;
 import com.ogabek.istudy.entity.Payment;
 import com.ogabek.istudy.entity.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +15,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +31,28 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             "ORDER BY p.createdAt DESC")
     List<Payment> findByBranchIdWithAllRelations(@Param("branchId") Long branchId);
 
+    // Read-only rows for the branch payment list; group is outer-joined so old payments without one stay listed
+    @Query("SELECT new com.ogabek.istudy.dto.projection.PaymentRow(" +
+            "p.id, s.id, s.firstName, s.lastName, c.id, c.name, g.id, g.name, " +
+            "p.amount, p.paymentYear, p.paymentMonth, p.description, p.status, b.id, b.name, p.createdAt) " +
+            "FROM Payment p LEFT JOIN p.student s LEFT JOIN p.course c LEFT JOIN p.group g JOIN p.branch b " +
+            "WHERE p.branch.id = :branchId " +
+            "ORDER BY p.createdAt DESC")
+    List<PaymentRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
+    // Per-student payment totals for one month and last payment date, for every student of a branch
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentPaymentSummary(" +
+            "s.id, " +
+            "SUM(CASE WHEN p.paymentYear = :year AND p.paymentMonth = :month THEN p.amount END), " +
+            "COUNT(CASE WHEN p.paymentYear = :year AND p.paymentMonth = :month THEN p.id END), " +
+            "MAX(p.createdAt)) " +
+            "FROM Payment p JOIN p.student s " +
+            "WHERE s.branch.id = :branchId " +
+            "GROUP BY s.id")
+    List<StudentPaymentSummary> findStudentPaymentSummaries(@Param("branchId") Long branchId,
+                                                           @Param("year") int year,
+                                                           @Param("month") int month);
+
     // Fetch payments by student with relations
     @Query("SELECT p FROM Payment p " +
             "LEFT JOIN FETCH p.student " +
@@ -39,9 +67,81 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             "LEFT JOIN FETCH p.student " +
             "LEFT JOIN FETCH p.course " +
             "LEFT JOIN FETCH p.branch " +
+            "LEFT JOIN FETCH p.group " +
             "WHERE p.id = :id")
     Optional<Payment> findByIdWithAllRelations(@Param("id") Long id);
 
+    // Keyset page of a branch's payments, newest first: rows strictly before (beforeCreatedAt, beforeId)
+    @Query("SELECT p FROM Payment p " +
+            "LEFT JOIN FETCH p.student " +
+            "LEFT JOIN FETCH p.course " +
+            "LEFT JOIN FETCH p.branch " +
+            "LEFT JOIN FETCH p.group " +
+            "WHERE p.branch.id = :branchId " +
+            "AND (p.createdAt < :beforeCreatedAt OR (p.createdAt = :beforeCreatedAt AND p.id < :beforeId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageByBranchId(@Param("branchId") Long branchId,
+                                     @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                     @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    // Filtered keyset page for the payment ledger; null filters are ignored
+    @Query("SELECT p FROM Payment p " +
+            "LEFT JOIN FETCH p.student " +
+            "LEFT JOIN FETCH p.course " +
+            "LEFT JOIN FETCH p.branch " +
+            "LEFT JOIN FETCH p.group " +
+            "WHERE p.branch.id = :branchId " +
+            "AND (:studentId IS NULL OR p.student.id = :studentId) " +
+            "AND (:groupId IS NULL OR p.group.id = :groupId) " +
+            "AND (:courseId IS NULL OR p.course.id = :courseId) " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "AND (:minAmount IS NULL OR p.amount >= :minAmount) " +
+            "AND (:maxAmount IS NULL OR p.amount <= :maxAmount) " +
+            "AND (:year IS NULL OR p.paymentYear = :year) " +
+            "AND (:month IS NULL OR p.paymentMonth = :month) " +
+            "AND p.createdAt BETWEEN :from AND :to " +
+            "AND (p.createdAt < :beforeCreatedAt OR (p.createdAt = :beforeCreatedAt AND p.id < :beforeId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findLedgerPage(@Param("branchId") Long branchId,
+                                 @Param("studentId") Long studentId,
+                                 @Param("groupId") Long groupId,
+                                 @Param("courseId") Long courseId,
+                                 @Param("status") PaymentStatus status,
+                                 @Param("minAmount") BigDecimal minAmount,
+                                 @Param("maxAmount") BigDecimal maxAmount,
+                                 @Param("year") Integer year,
+                                 @Param("month") Integer month,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable pageable);
+
+    // Keyset page of payment ids whose student name matches; the expression matches the
+    // idx_students_full_name_trgm trigram index (see db/indexes.sql). :name must be LIKE-escaped with '\'
+    @Query(value = "SELECT p.id FROM payments p JOIN students s ON s.id = p.student_id " +
+            "WHERE p.branch_id = :branchId " +
+            "AND lower(s.first_name || ' ' || s.last_name) LIKE '%' || lower(:name) || '%' ESCAPE '\\' " +
+            "AND (p.created_at, p.id) < (:beforeCreatedAt, :beforeId) " +
+            "ORDER BY p.created_at DESC, p.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Long> searchPageIdsByStudentName(@Param("branchId") Long branchId,
+                                          @Param("name") String name,
+                                          @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                          @Param("beforeId") Long beforeId,
+                                          @Param("limit") int limit);
+
+    // Fetch a page of payments by id with all relations, newest first
+    @Query("SELECT p FROM Payment p " +
+            "LEFT JOIN FETCH p.student " +
+            "LEFT JOIN FETCH p.course " +
+            "LEFT JOIN FETCH p.branch " +
+            "LEFT JOIN FETCH p.group " +
+            "WHERE p.id IN :ids " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findAllByIdWithAllRelations(@Param("ids") Collection<Long> ids);
+
     // Fetch payments by date range with relations
     @Query("SELECT p FROM Payment p " +
             "LEFT JOIN FETCH p.student " +
@@ -116,6 +216,31 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
                                                     @Param("year") int year,
                                                     @Param("month") int month);
 
+    // Per-(student, group) monthly totals for a set of groups, replacing one sum query per student
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentGroupTotal(p.student.id, p.group.id, SUM(p.amount)) " +
+            "FROM Payment p " +
+            "WHERE p.group.id IN :groupIds AND p.paymentYear = :year AND p.paymentMonth = :month " +
+            "GROUP BY p.student.id, p.group.id")
+    List<StudentGroupTotal> findStudentGroupTotalsForMonth(@Param("groupIds") Collection<Long> groupIds,
+                                                           @Param("year") int year,
+                                                           @Param("month") int month);
+
+    // Per-(student, course) totals for every student of a branch, all time
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentCourseTotal(s.id, p.course.id, SUM(p.amount)) " +
+            "FROM Payment p JOIN p.student s " +
+            "WHERE s.branch.id = :branchId " +
+            "GROUP BY s.id, p.course.id")
+    List<StudentCourseTotal> findStudentCourseTotals(@Param("branchId") Long branchId);
+
+    // Per-(student, course) totals for every student of a branch, one month
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentCourseTotal(s.id, p.course.id, SUM(p.amount)) " +
+            "FROM Payment p JOIN p.student s " +
+            "WHERE s.branch.id = :branchId AND p.paymentYear = :year AND p.paymentMonth = :month " +
+            "GROUP BY s.id, p.course.id")
+    List<StudentCourseTotal> findStudentCourseTotalsForMonth(@Param("branchId") Long branchId,
+                                                             @Param("year") int year,
+                                                             @Param("month") int month);
+
     List<Payment> findByCourseId(Long courseId);
 
     @Modifying
@@ -1,5 +1,6 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.StudentRow;
 import com.ogabek.istudy.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -20,6 +21,14 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
             "(LOWER(CONCAT(s.firstName, ' ', s.lastName)) LIKE LOWER(CONCAT('%', :name, '%')))")
     List<Student> findByBranchIdAndFullName(@Param("branchId") Long branchId, @Param("name") String name);
 
+    // Read-only rows for the branch student list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.StudentRow(" +
+            "s.id, s.firstName, s.lastName, s.phoneNumber, s.parentPhoneNumber, b.id, b.name, s.createdAt) " +
+            "FROM Student s JOIN s.branch b " +
+            "WHERE s.branch.id = :branchId " +
+            "ORDER BY s.lastName ASC, s.firstName ASC")
+    List<StudentRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
     // Find students who haven't paid for specific month/year
     @Query("SELECT s FROM Student s WHERE s.branch.id = :branchId AND s.id NOT IN " +
             "(SELECT DISTINCT p.student.id FROM Payment p WHERE p.paymentYear = :year AND p.paymentMonth = :month)")
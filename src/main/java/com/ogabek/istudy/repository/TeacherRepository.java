@@ -1,5 +1,6 @@
 package com.ogabek.istudy.repository;
 
+import com.ogabek.istudy.dto.projection.TeacherRow;
 import com.ogabek.istudy.entity.Teacher;
 import com.ogabek.istudy.entity.SalaryType;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,6 +18,14 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     @Query("SELECT t FROM Teacher t LEFT JOIN FETCH t.branch WHERE t.branch.id = :branchId ORDER BY t.createdAt ASC ")
     List<Teacher> findByBranchIdWithBranch(@Param("branchId") Long branchId);
 
+    // Read-only rows for the branch teacher list
+    @Query("SELECT new com.ogabek.istudy.dto.projection.TeacherRow(" +
+            "t.id, t.firstName, t.lastName, t.phoneNumber, t.email, t.baseSalary, t.paymentPercentage, " +
+            "t.salaryType, b.id, b.name, t.createdAt) " +
+            "FROM Teacher t JOIN t.branch b " +
+            "WHERE t.branch.id = :branchId ORDER BY t.createdAt ASC")
+    List<TeacherRow> findRowsByBranchId(@Param("branchId") Long branchId);
+
     // Fetch single teacher with branch eagerly loaded
     @Query("SELECT t FROM Teacher t LEFT JOIN FETCH t.branch WHERE t.id = :id")
     Optional<Teacher> findByIdWithBranch(@Param("id") Long id);
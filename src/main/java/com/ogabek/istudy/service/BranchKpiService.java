@@ -0,0 +1,198 @@
+package com.ogabek.istudy.service;
+
+import com.ogabek.istudy.entity.SalaryType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Business KPIs per branch for the current month, exported as gauges tagged with the branch id:
+ * active students, expected vs collected revenue (and the collection rate), unpaid students,
+ * outstanding teacher salaries and month-to-date expenses.
+ * One scheduled job computes every branch with a handful of grouped queries in a single read-only,
+ * repeatable-read transaction, so scraping the gauges never touches the database and the numbers
+ * of one refresh are consistent with each other. Definitions match the student, salary and
+ * report endpoints (paid = payments for the course in the month reach the course price).
+ */
+@Service
+@Slf4j
+public class BranchKpiService {
+    private static final String MEMBERSHIP_SQL = """
+            SELECT g.branch_id,
+                   COUNT(DISTINCT gs.student_id) AS active_students,
+                   COALESCE(SUM(c.price), 0) AS expected_revenue,
+                   COUNT(DISTINCT gs.student_id) FILTER (WHERE COALESCE(p.paid, 0) < c.price) AS unpaid_students
+            FROM group_students gs
+            JOIN groups g ON g.id = gs.group_id
+            JOIN courses c ON c.id = g.course_id
+            LEFT JOIN (SELECT student_id, course_id, SUM(amount) AS paid
+                       FROM payments
+                       WHERE payment_year = ? AND payment_month = ?
+                       GROUP BY student_id, course_id) p
+                   ON p.student_id = gs.student_id AND p.course_id = g.course_id
+            GROUP BY g.branch_id""";
+
+    private static final String COLLECTED_SQL = """
+            SELECT branch_id, COALESCE(SUM(amount), 0)
+            FROM payments
+            WHERE payment_year = ? AND payment_month = ?
+            GROUP BY branch_id""";
+
+    // Same revenue basis as TeacherSalaryService: payments of the students still in the teacher's groups
+    private static final String TEACHER_SQL = """
+            SELECT t.branch_id, t.salary_type, t.base_salary, t.payment_percentage,
+                   COALESCE(r.revenue, 0) AS revenue, COALESCE(s.paid, 0) AS paid
+            FROM teachers t
+            LEFT JOIN (SELECT g.teacher_id, SUM(p.amount) AS revenue
+                       FROM payments p
+                       JOIN groups g ON g.id = p.group_id
+                       JOIN group_students gs ON gs.group_id = p.group_id AND gs.student_id = p.student_id
+                       WHERE p.payment_year = ? AND p.payment_month = ?
+                       GROUP BY g.teacher_id) r ON r.teacher_id = t.id
+            LEFT JOIN (SELECT teacher_id, SUM(amount) AS paid
+                       FROM teacher_salary_payments
+                       WHERE year = ? AND month = ?
+                       GROUP BY teacher_id) s ON s.teacher_id = t.id""";
+
+    private static final String EXPENSES_SQL = """
+            SELECT branch_id, COALESCE(SUM(amount), 0)
+            FROM expenses
+            WHERE created_at >= ? AND created_at < ?
+            GROUP BY branch_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Timer refreshTimer;
+    private final List<KpiGauge> gauges = new ArrayList<>();
+
+    public BranchKpiService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.refreshTimer = Timer.builder("istudy.kpi.refresh")
+                .description("Time to recompute the branch KPI gauges")
+                .register(meterRegistry);
+
+        gauge(meterRegistry, "istudy.branch.students.active", "Students enrolled in at least one group",
+                kpi -> kpi.activeStudents);
+        gauge(meterRegistry, "istudy.branch.students.unpaid", "Students with a group not fully paid this month",
+                kpi -> kpi.unpaidStudents);
+        gauge(meterRegistry, "istudy.branch.revenue.expected", "Course fees due this month from current enrollments",
+                kpi -> kpi.expectedRevenue.doubleValue());
+        gauge(meterRegistry, "istudy.branch.revenue.collected", "Payments recorded for this month",
+                kpi -> kpi.collectedRevenue.doubleValue());
+        gauge(meterRegistry, "istudy.branch.revenue.collection-rate", "Collected / expected revenue this month",
+                BranchKpi::collectionRate);
+        gauge(meterRegistry, "istudy.branch.salary.outstanding", "Teacher salaries of this month not yet paid out",
+                kpi -> kpi.salaryOutstanding.doubleValue());
+        gauge(meterRegistry, "istudy.branch.expenses.month-to-date", "Expenses created since the start of the month",
+                kpi -> kpi.expensesMonthToDate.doubleValue());
+    }
+
+    @Scheduled(initialDelayString = "${app.kpi.initial-delay-ms:30000}", fixedDelayString = "${app.kpi.refresh-ms:300000}")
+    public void refresh() {
+        try {
+            Map<Long, BranchKpi> kpis = refreshTimer.record(() ->
+                    snapshotTransaction.execute(status -> compute(YearMonth.now())));
+            for (KpiGauge gauge : gauges) {
+                gauge.update(kpis);
+            }
+        } catch (DataAccessException e) {
+            // Keep the previous values; the next run tries again
+            log.warn("Branch KPI refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private Map<Long, BranchKpi> compute(YearMonth period) {
+        int year = period.getYear();
+        int month = period.getMonthValue();
+        Map<Long, BranchKpi> kpis = new HashMap<>();
+
+        // Every branch gets a value, including ones without any activity yet
+        jdbcTemplate.query("SELECT id FROM branches", rs -> {
+            kpis.put(rs.getLong(1), new BranchKpi());
+        });
+
+        jdbcTemplate.query(MEMBERSHIP_SQL, rs -> {
+            BranchKpi kpi = kpis.computeIfAbsent(rs.getLong("branch_id"), id -> new BranchKpi());
+            kpi.activeStudents = rs.getLong("active_students");
+            kpi.expectedRevenue = rs.getBigDecimal("expected_revenue");
+            kpi.unpaidStudents = rs.getLong("unpaid_students");
+        }, year, month);
+
+        jdbcTemplate.query(COLLECTED_SQL, rs -> {
+            kpis.computeIfAbsent(rs.getLong(1), id -> new BranchKpi()).collectedRevenue = rs.getBigDecimal(2);
+        }, year, month);
+
+        jdbcTemplate.query(TEACHER_SQL, rs -> {
+            String salaryType = rs.getString("salary_type");
+            BigDecimal baseSalary = rs.getBigDecimal("base_salary");
+            TeacherSalaryService.SalaryAmounts salary = TeacherSalaryService.salaryFor(
+                    salaryType != null ? SalaryType.valueOf(salaryType) : SalaryType.FIXED,
+                    baseSalary != null ? baseSalary : BigDecimal.ZERO,
+                    rs.getBigDecimal("payment_percentage"),
+                    rs.getBigDecimal("revenue"));
+
+            BigDecimal remaining = salary.totalSalary().subtract(rs.getBigDecimal("paid"));
+            if (remaining.signum() > 0) {
+                BranchKpi kpi = kpis.computeIfAbsent(rs.getLong("branch_id"), id -> new BranchKpi());
+                kpi.salaryOutstanding = kpi.salaryOutstanding.add(remaining);
+            }
+        }, year, month, year, month);
+
+        jdbcTemplate.query(EXPENSES_SQL, rs -> {
+            kpis.computeIfAbsent(rs.getLong(1), id -> new BranchKpi()).expensesMonthToDate = rs.getBigDecimal(2);
+        }, Timestamp.valueOf(period.atDay(1).atStartOfDay()), Timestamp.valueOf(period.plusMonths(1).atDay(1).atStartOfDay()));
+
+        return kpis;
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String description, ToDoubleFunction<BranchKpi> value) {
+        MultiGauge multiGauge = MultiGauge.builder(name).description(description).register(meterRegistry);
+        gauges.add(new KpiGauge(multiGauge, value));
+    }
+
+    private record KpiGauge(MultiGauge multiGauge, ToDoubleFunction<BranchKpi> value) {
+        void update(Map<Long, BranchKpi> kpis) {
+            // Values are fixed per refresh; overwrite drops branches that no longer exist
+            List<MultiGauge.Row<?>> rows = kpis.entrySet().stream()
+                    .<MultiGauge.Row<?>>map(entry -> MultiGauge.Row.of(
+                            Tags.of("branch", String.valueOf(entry.getKey())), value.applyAsDouble(entry.getValue())))
+                    .toList();
+            multiGauge.register(rows, true);
+        }
+    }
+
+    private static final class BranchKpi {
+        private long activeStudents;
+        private long unpaidStudents;
+        private BigDecimal expectedRevenue = BigDecimal.ZERO;
+        private BigDecimal collectedRevenue = BigDecimal.ZERO;
+        private BigDecimal salaryOutstanding = BigDecimal.ZERO;
+        private BigDecimal expensesMonthToDate = BigDecimal.ZERO;
+
+        private double collectionRate() {
+            return expectedRevenue.signum() > 0 ? collectedRevenue.doubleValue() / expectedRevenue.doubleValue() : 0;
+        }
+    }
+}
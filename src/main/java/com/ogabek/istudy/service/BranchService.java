@@ -1,5 +1,6 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.config.CacheConfig;
 import com.ogabek.istudy.dto.request.CreateBranchRequest;
 import com.ogabek.istudy.dto.response.BranchDto;
 import com.ogabek.istudy.entity.Branch;
@@ -9,6 +10,9 @@ import com.ogabek.istudy.entity.User;
 import com.ogabek.istudy.repository.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -22,19 +26,21 @@ public class BranchService {
     private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
 
-
+    @Cacheable(cacheNames = CacheConfig.BRANCH_LIST, key = "'all'")
     public List<BranchDto> getAllBranches() {
         return branchRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.BRANCHES, key = "#id")
     public BranchDto getBranchById(Long id) {
         Branch branch = branchRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Branch not found with id: " + id));
         return convertToDto(branch);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BRANCH_LIST, allEntries = true)
     public BranchDto createBranch(CreateBranchRequest request) {
         Branch branch = new Branch();
         branch.setName(request.getName());
@@ -44,6 +50,12 @@ public class BranchService {
         return convertToDto(savedBranch);
     }
 
+    // The branch name is copied into every cached course and teacher DTO
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BRANCHES, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BRANCH_LIST, CacheConfig.COURSES, CacheConfig.BRANCH_COURSES,
+                    CacheConfig.TEACHERS, CacheConfig.BRANCH_TEACHERS}, allEntries = true)
+    })
     public BranchDto updateBranch(Long id, CreateBranchRequest request) {
         Branch branch = branchRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Branch not found with id: " + id));
@@ -55,6 +67,12 @@ public class BranchService {
         return convertToDto(savedBranch);
     }
 
+    // Courses and teachers of the branch may still sit in the DTO caches (their per-id keys are not known here)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BRANCHES, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BRANCH_COURSES, CacheConfig.BRANCH_TEACHERS}, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BRANCH_LIST, CacheConfig.COURSES, CacheConfig.TEACHERS}, allEntries = true)
+    })
     @Transactional
     public void deleteBranch(Long id) {
         Branch branch = branchRepository.findById(id)
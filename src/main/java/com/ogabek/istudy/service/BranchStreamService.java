@@ -0,0 +1,226 @@
+package com.ogabek.istudy.service;
+
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed {@link BranchEvent}s out to the SSE subscribers of their branch.
+ * Publishers never touch a socket: each subscriber has its own bounded queue drained on a small
+ * dedicated send pool, and a subscriber that falls more than {@code buffer-size} events behind gets
+ * its queue replaced by a single RESYNC event instead of slowing everyone else down.
+ * <p>
+ * {@link SseEmitter#send} blocks while the client's TCP window is full, so the pool is kept apart
+ * from the application task executor. A subscriber whose send has been stuck longer than
+ * {@code send-timeout-ms}, or that cannot get a pool slot, is completed and dropped; the browser's
+ * EventSource reconnects and refetches.
+ */
+@Service
+@Slf4j
+public class BranchStreamService {
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor sendExecutor;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final long sendTimeoutMs;
+
+    public BranchStreamService(@Value("${app.stream.timeout-ms:1800000}") long timeoutMs,
+                               @Value("${app.stream.buffer-size:256}") int bufferSize,
+                               @Value("${app.stream.send-threads:4}") int sendThreads,
+                               @Value("${app.stream.send-queue:1024}") int sendQueue,
+                               @Value("${app.stream.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        // At most one drain task per subscriber is ever queued, so send-queue bounds the subscribers
+        // waiting for a slot; beyond that the default AbortPolicy rejects and the subscriber is dropped
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(sendQueue),
+                Thread.ofPlatform().name("sse-send-", 0).daemon().factory());
+        this.sendExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Long branchId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(branchId, emitter);
+
+        subscribers.compute(branchId, (id, branchSubscribers) -> {
+            Set<Subscriber> set = branchSubscribers != null ? branchSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Flushes the response headers so the client sees the stream open immediately
+        subscriber.offer(SseEmitter.event().comment("connected").build());
+        return emitter;
+    }
+
+    // Runs after the publishing transaction commits (or immediately when there is none)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBranchEvent(BranchEvent event) {
+        Set<Subscriber> branchSubscribers = subscribers.get(event.branchId());
+        if (branchSubscribers == null || branchSubscribers.isEmpty()) {
+            return;
+        }
+
+        // Built once and shared: the encoded frame is immutable
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event()
+                .id(String.valueOf(sequence.incrementAndGet()))
+                .name(event.type().name())
+                .data(event, MediaType.APPLICATION_JSON)
+                .build();
+        for (Subscriber subscriber : branchSubscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${app.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        long now = System.currentTimeMillis();
+        subscribers.values().forEach(branchSubscribers -> branchSubscribers.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                subscriber.drop("send blocked for more than " + sendTimeoutMs + " ms");
+            } else {
+                subscriber.offer(ping);
+            }
+        }));
+    }
+
+    public int subscriberCount(Long branchId) {
+        Set<Subscriber> branchSubscribers = subscribers.get(branchId);
+        return branchSubscribers != null ? branchSubscribers.size() : 0;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.branchId, (id, branchSubscribers) -> {
+            branchSubscribers.remove(subscriber);
+            return branchSubscribers.isEmpty() ? null : branchSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long branchId;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean resync = new AtomicBoolean();
+        // Wall-clock start of the send in progress, 0 when idle
+        private final AtomicLong sendStartedAt = new AtomicLong();
+
+        private Subscriber(Long branchId, SseEmitter emitter) {
+            this.branchId = branchId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (queued.incrementAndGet() > bufferSize) {
+                queued.decrementAndGet();
+                resync.set(true);
+            } else {
+                queue.offer(frame);
+            }
+            scheduleDrain();
+        }
+
+        boolean isStalled(long now) {
+            long startedAt = sendStartedAt.get();
+            return startedAt != 0 && now - startedAt > sendTimeoutMs;
+        }
+
+        // Completing the emitter closes the async response, which also fails a write stuck on it
+        void drop(String reason) {
+            log.debug("Dropping SSE subscriber of branch {}: {}", branchId, reason);
+            remove(this);
+            emitter.complete();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sendExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    drop("send pool is full");
+                }
+            }
+        }
+
+        private void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) throws IOException {
+            sendStartedAt.set(System.currentTimeMillis());
+            try {
+                emitter.send(frame);
+            } finally {
+                sendStartedAt.set(0);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    if (resync.getAndSet(false)) {
+                        while (queue.poll() != null) {
+                            queued.decrementAndGet();
+                        }
+                        send(SseEmitter.event()
+                                .id(String.valueOf(sequence.incrementAndGet()))
+                                .name(BranchEventType.RESYNC.name())
+                                .data(BranchEvent.of(BranchEventType.RESYNC, branchId, null, null), MediaType.APPLICATION_JSON)
+                                .build());
+                    }
+                    Set<ResponseBodyEmitter.DataWithMediaType> frame = queue.poll();
+                    if (frame == null) {
+                        break;
+                    }
+                    queued.decrementAndGet();
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping SSE subscriber of branch {}: {}", branchId, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            // An offer may have landed between the last poll and releasing the flag
+            if (!queue.isEmpty() || resync.get()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.config.CacheConfig;
+import com.ogabek.istudy.dto.projection.GroupRow;
 import com.ogabek.istudy.dto.request.CreateCourseRequest;
 import com.ogabek.istudy.dto.response.CourseDto;
 import com.ogabek.istudy.dto.response.GroupDto;
@@ -11,12 +13,15 @@ import com.ogabek.istudy.repository.CourseRepository;
 import com.ogabek.istudy.repository.GroupRepository;
 import com.ogabek.istudy.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,11 +31,17 @@ public class CourseService {
     private final BranchRepository branchRepository;
     private final GroupRepository groupRepository;
     private final PaymentRepository paymentRepository;
+    private final LedgerVersionService ledgerVersionService;
 
+    @Cacheable(cacheNames = CacheConfig.BRANCH_COURSES, key = "#branchId")
     @Transactional(readOnly = true)
     public List<CourseDto> getCoursesByBranch(Long branchId) {
-        return courseRepository.findByBranchIdOrderByNameWithBranch(branchId).stream()
-                .map(this::convertToDto)
+        Map<Long, List<GroupDto>> groupsByCourse = groupRepository.findRowsByCourseBranchId(branchId).stream()
+                .collect(Collectors.groupingBy(GroupRow::courseId,
+                        Collectors.mapping(GroupRow::toDto, Collectors.toList())));
+
+        return courseRepository.findRowsByBranchId(branchId).stream()
+                .map(row -> row.toDto(groupsByCourse.getOrDefault(row.id(), new ArrayList<>())))
                 .collect(Collectors.toList());
     }
 
@@ -41,6 +52,7 @@ public class CourseService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id")
     @Transactional(readOnly = true)
     public CourseDto getCourseById(Long id) {
         Course course = courseRepository.findByIdWithBranch(id)
@@ -48,6 +60,7 @@ public class CourseService {
         return convertToDto(course);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BRANCH_COURSES, key = "#request.branchId")
     @Transactional
     public CourseDto createCourse(CreateCourseRequest request) {
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -64,9 +77,13 @@ public class CourseService {
         return convertToDto(savedCourse);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BRANCH_COURSES, allEntries = true)
+    })
     @Transactional
     public CourseDto updateCourse(Long id, CreateCourseRequest request) {
-        Course course = courseRepository.findByIdWithBranch(id)
+        Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
 
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -82,6 +99,10 @@ public class CourseService {
         return convertToDto(savedCourse);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BRANCH_COURSES, allEntries = true)
+    })
     @Transactional
     public void deleteCourse(Long id) {
         Course course = courseRepository.findById(id)
@@ -97,6 +118,7 @@ public class CourseService {
             // Delete payments related to this course first
             // Add this method to PaymentRepository: void deleteByCourseId(Long courseId);
             paymentRepository.deleteByCourseId(id);
+            ledgerVersionService.recordBranchWrite(course.getBranch().getId());
 
             courseRepository.deleteById(id);
         } catch (Exception e) {
@@ -115,43 +137,10 @@ public class CourseService {
         dto.setBranchName(course.getBranch().getName());
         dto.setCreatedAt(course.getCreatedAt());
 
-        // NEW: Add groups associated with this course
-        List<Group> groups = groupRepository.findByCourseId(course.getId());
-        List<GroupDto> groupDtos = groups.stream()
-                .map(this::convertGroupToDto)
-                .collect(Collectors.toList());
-        dto.setGroups(groupDtos);
-        return dto;
-    }
-
-    // In CourseService.java, update the convertGroupToDto method:
-
-    private GroupDto convertGroupToDto(Group group) {
-        GroupDto dto = new GroupDto();
-        dto.setId(group.getId());
-        dto.setName(group.getName());
-        dto.setCourseId(group.getCourse().getId());
-        dto.setCourseName(group.getCourse().getName());
-
-        if (group.getTeacher() != null) {
-            dto.setTeacherId(group.getTeacher().getId());
-            dto.setTeacherName(group.getTeacher().getFirstName() + " " + group.getTeacher().getLastName());
-        }
-
-        dto.setBranchId(group.getBranch().getId());
-        dto.setBranchName(group.getBranch().getName());
-
-        // UPDATED: Set schedule fields as String (not LocalTime)
-        dto.setStartTime(group.getStartTime());  // Already String now
-        dto.setEndTime(group.getEndTime());      // Already String now
-
-        if (group.getDaysOfWeek() != null && !group.getDaysOfWeek().isEmpty()) {
-            dto.setDaysOfWeek(Arrays.asList(group.getDaysOfWeek().split(",")));
-        } else {
-            dto.setDaysOfWeek(new ArrayList<>());
-        }
-
-        dto.setCreatedAt(group.getCreatedAt());
+        // Groups associated with this course
+        dto.setGroups(groupRepository.findRowsByCourseId(course.getId()).stream()
+                .map(GroupRow::toDto)
+                .collect(Collectors.toList()));
         return dto;
     }
 }
\ No newline at end of file
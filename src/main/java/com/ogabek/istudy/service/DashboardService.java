@@ -1,6 +1,7 @@
 package com.ogabek.istudy.service;
 
 import com.ogabek.istudy.dto.response.DashboardStatsDto;
+import com.ogabek.istudy.entity.Money;
 import com.ogabek.istudy.repository.*;
 import com.ogabek.istudy.security.BranchAccessControl;
 import lombok.RequiredArgsConstructor;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -19,12 +21,21 @@ public class DashboardService {
     private final TeacherRepository teacherRepository;
     private final PaymentRepository paymentRepository;
     private final BranchAccessControl branchAccessControl;
+    private final SingleFlightService singleFlightService;
+    private final DataVersionService dataVersionService;
 
     public DashboardStatsDto getDashboardStats() {
         if (branchAccessControl.isSuperAdmin()) {
-            return getSuperAdminStats();
+            // Keyed by the version the controller's ETag was built from, so no flight outlives a write
+            return singleFlightService.execute("dashboard-stats", List.of("ALL", dataVersionService.globalVersion()),
+                    this::getSuperAdminStats);
         } else {
-            return getBranchAdminStats();
+            Long branchId = branchAccessControl.getCurrentUserBranchId();
+            if (branchId == null) {
+                throw new RuntimeException("Branch admin must have a branch assigned");
+            }
+            return singleFlightService.execute("dashboard-stats", List.of(branchId, dataVersionService.branchVersion(branchId)),
+                    () -> getBranchAdminStats(branchId));
         }
     }
 
@@ -42,12 +53,7 @@ public class DashboardService {
                                    totalTeachers, monthlyRevenue, totalRevenue);
     }
 
-    private DashboardStatsDto getBranchAdminStats() {
-        Long branchId = branchAccessControl.getCurrentUserBranchId();
-        if (branchId == null) {
-            throw new RuntimeException("Branch admin must have a branch assigned");
-        }
-
+    private DashboardStatsDto getBranchAdminStats(Long branchId) {
         Long totalBranches = 1L; // Branch admin only sees their own branch
         Long totalUsers = (long) userRepository.findByBranchId(branchId).size();
         Long totalStudents = (long) studentRepository.findByBranchId(branchId).size();
@@ -63,19 +69,25 @@ public class DashboardService {
 
     private BigDecimal getTotalMonthlyRevenue(int year, int month) {
         return branchRepository.findAll().stream()
-                .map(branch -> paymentRepository.sumMonthlyPayments(branch.getId(), year, month))
-                .reduce(BigDecimal.ZERO, (a, b) -> a.add(b != null ? b : BigDecimal.ZERO));
+                .map(branch -> Money.ofNullable(paymentRepository.sumMonthlyPayments(branch.getId(), year, month)))
+                .reduce(Money.ZERO, Money::plus)
+                .toBigDecimal();
     }
 
     private BigDecimal getTotalRevenue() {
         return branchRepository.findAll().stream()
-                .map(branch -> getBranchTotalRevenue(branch.getId()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(branch -> branchTotalRevenue(branch.getId()))
+                .reduce(Money.ZERO, Money::plus)
+                .toBigDecimal();
     }
 
     private BigDecimal getBranchTotalRevenue(Long branchId) {
+        return branchTotalRevenue(branchId).toBigDecimal();
+    }
+
+    private Money branchTotalRevenue(Long branchId) {
         return paymentRepository.findByBranchId(branchId).stream()
-                .map(payment -> payment.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .map(payment -> Money.of(payment.getAmount()))
+                .reduce(Money.ZERO, Money::plus);
     }
 }
\ No newline at end of file
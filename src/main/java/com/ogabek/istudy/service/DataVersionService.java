@@ -0,0 +1,145 @@
+package com.ogabek.istudy.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-branch data version: bumped once per committed transaction that wrote any row of the branch
+ * (fed by DataVersionListener). Read endpoints derive their ETag from it, so an unchanged poll is
+ * answered with 304 after a single counter lookup.
+ * The counters live in memory and restart at 0, so every tag also carries a random per-boot epoch:
+ * a tag issued before a restart never matches again. The versions are per instance, though; with
+ * more than one instance a write on one is invisible to the others' tags, so running several needs
+ * a shared version (e.g. a counter in Postgres or Redis) or sticky sessions per client.
+ * It also keeps when each branch was last written, and which branches the current request serves
+ * under their current version, so the replica routing can keep those reads on the primary.
+ */
+@Service
+public class DataVersionService {
+    private static final String PINNED_ATTRIBUTE = DataVersionService.class.getName() + ".pinned";
+
+    private final String bootEpoch = UUID.randomUUID().toString().substring(0, 8);
+    private final ConcurrentMap<Long, AtomicLong> branchVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final ConcurrentMap<Long, Long> branchWrittenAt = new ConcurrentHashMap<>();
+    private final AtomicLong globalWrittenAt = new AtomicLong();
+
+    // A null branchId is a write outside any branch: only the global version moves
+    public void recordWrite(Long branchId) {
+        // Stamped now, while the transaction is still open, and again when the version moves
+        stamp(branchId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(Collections.singleton(branchId));
+            return;
+        }
+
+        // One synchronization per transaction, collecting every branch it touched
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Long> branchIds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, branchIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(branchIds);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DataVersionService.this);
+                }
+            });
+            pending = branchIds;
+        }
+        pending.add(branchId);
+    }
+
+    public long branchVersion(Long branchId) {
+        AtomicLong version = branchVersions.get(branchId);
+        return version != null ? version.get() : 0L;
+    }
+
+    public long globalVersion() {
+        return globalVersion.get();
+    }
+
+    // Epoch millis of the last write of the branch (null: of any branch), 0 if none since boot
+    public long lastWriteAt(Long branchId) {
+        if (branchId == null) {
+            return globalWrittenAt.get();
+        }
+        return branchWrittenAt.getOrDefault(branchId, 0L);
+    }
+
+    /**
+     * Marks the current request as serving the branch's data under its current version, as an ETag or
+     * a version-keyed cache entry ({@code branchId == null}: all branches). Such reads must not come
+     * from a replica that may not have replayed that version yet. Outside a request this does nothing.
+     */
+    public void pinRead(Long branchId) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pinned = (Set<Long>) attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (pinned == null) {
+            pinned = new HashSet<>();
+            attributes.setAttribute(PINNED_ATTRIBUTE, pinned, RequestAttributes.SCOPE_REQUEST);
+        }
+        pinned.add(branchId);
+    }
+
+    // Branches pinned by the current request; a null element means all branches
+    @SuppressWarnings("unchecked")
+    public Set<Long> pinnedReads() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pinned = attributes != null ? attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) : null;
+        return pinned != null ? (Set<Long>) pinned : Set.of();
+    }
+
+    /**
+     * Strong ETag for a branch-scoped read ({@code branchId == null} means all branches). Includes
+     * today's date because several responses default to the current month, and the request
+     * parameters so different views of the same resource never share a tag.
+     */
+    public String etag(String resource, Long branchId, Object... params) {
+        pinRead(branchId);
+        long version = branchId != null ? branchVersion(branchId) : globalVersion();
+        String scope = branchId != null ? "b" + branchId : "all";
+        return "\"" + resource + "-" + scope + "-" + bootEpoch + "-v" + version + "-" + LocalDate.now()
+                + "-" + Integer.toHexString(Arrays.hashCode(params)) + "\"";
+    }
+
+    private void bump(Set<Long> branchIds) {
+        for (Long branchId : branchIds) {
+            if (branchId != null) {
+                branchVersions.computeIfAbsent(branchId, id -> new AtomicLong()).incrementAndGet();
+            }
+            stamp(branchId);
+        }
+        globalVersion.incrementAndGet();
+    }
+
+    private void stamp(Long branchId) {
+        long now = System.currentTimeMillis();
+        if (branchId != null) {
+            branchWrittenAt.put(branchId, now);
+        }
+        globalWrittenAt.set(now);
+    }
+}
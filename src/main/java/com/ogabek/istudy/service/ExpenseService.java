@@ -1,12 +1,16 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.dto.projection.ExpenseRow;
 import com.ogabek.istudy.dto.request.CreateExpenseRequest;
 import com.ogabek.istudy.dto.response.ExpenseDto;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
 import com.ogabek.istudy.entity.Branch;
 import com.ogabek.istudy.entity.Expense;
 import com.ogabek.istudy.repository.BranchRepository;
 import com.ogabek.istudy.repository.ExpenseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -21,10 +25,12 @@ import java.util.stream.Collectors;
 public class ExpenseService {
     private final ExpenseRepository expenseRepository;
     private final BranchRepository branchRepository;
+    private final LedgerVersionService ledgerVersionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<ExpenseDto> getExpensesByBranch(Long branchId) {
-        return expenseRepository.findByBranchId(branchId).stream()
-                .map(this::convertToDto)
+        return expenseRepository.findRowsByBranchId(branchId).stream()
+                .map(ExpenseRow::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -77,7 +83,11 @@ public class ExpenseService {
         expense.setBranch(branch);
 
         Expense savedExpense = expenseRepository.save(expense);
-        return convertToDto(savedExpense);
+        ledgerVersionService.recordWrite(branch.getId(), null);
+
+        ExpenseDto dto = convertToDto(savedExpense);
+        eventPublisher.publishEvent(BranchEvent.of(BranchEventType.EXPENSE_CREATED, branch.getId(), dto.getId(), dto));
+        return dto;
     }
 
     public ExpenseDto updateExpense(Long id, CreateExpenseRequest request) {
@@ -87,20 +97,27 @@ public class ExpenseService {
         Branch branch = branchRepository.findById(request.getBranchId())
                 .orElseThrow(() -> new RuntimeException("Branch not found with id: " + request.getBranchId()));
 
+        // Both the old and the new branch see the change when an expense is moved
+        Long previousBranchId = expense.getBranch().getId();
+
         expense.setDescription(request.getDescription());
         expense.setAmount(request.getAmount());
         expense.setCategory(request.getCategory());
         expense.setBranch(branch);
 
         Expense savedExpense = expenseRepository.save(expense);
+        ledgerVersionService.recordWrite(previousBranchId, savedExpense.getCreatedAt());
+        if (!previousBranchId.equals(branch.getId())) {
+            ledgerVersionService.recordWrite(branch.getId(), savedExpense.getCreatedAt());
+        }
         return convertToDto(savedExpense);
     }
 
     public void deleteExpense(Long id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new RuntimeException("Expense not found with id: " + id);
-        }
-        expenseRepository.deleteById(id);
+        Expense expense = expenseRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+        expenseRepository.delete(expense);
+        ledgerVersionService.recordWrite(expense.getBranch().getId(), expense.getCreatedAt());
     }
 
     private ExpenseDto convertToDto(Expense expense) {
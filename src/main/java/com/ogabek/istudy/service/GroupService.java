@@ -1,12 +1,19 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.config.CacheConfig;
+import com.ogabek.istudy.dto.projection.GroupRow;
+import com.ogabek.istudy.dto.projection.StudentGroupTotal;
 import com.ogabek.istudy.dto.request.CreateGroupRequest;
 import com.ogabek.istudy.dto.response.GroupDto;
 import com.ogabek.istudy.dto.response.StudentDto;
 import com.ogabek.istudy.dto.response.StudentPaymentInfo;
 import com.ogabek.istudy.entity.*;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
 import com.ogabek.istudy.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,11 +32,12 @@ public class GroupService {
     private final BranchRepository branchRepository;
     private final StudentRepository studentRepository;
     private final PaymentRepository paymentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<GroupDto> getGroupsByBranch(Long branchId) {
-        return groupRepository.findByBranchIdWithAllRelations(branchId).stream()
-                .map(this::convertToDto)
+        return groupRepository.findRowsByBranchId(branchId).stream()
+                .map(GroupRow::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -63,12 +71,13 @@ public class GroupService {
         return convertToDtoWithStudentPayments(group,  year, month);
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.COURSES, CacheConfig.BRANCH_COURSES}, allEntries = true)
     @Transactional
     public GroupDto createGroup(CreateGroupRequest request) {
-        Course course = courseRepository.findByIdWithBranch(request.getCourseId())
+        Course course = courseRepository.findById(request.getCourseId())
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + request.getCourseId()));
 
-        Teacher teacher = teacherRepository.findByIdWithBranch(request.getTeacherId())
+        Teacher teacher = teacherRepository.findById(request.getTeacherId())
                 .orElseThrow(() -> new RuntimeException("Teacher not found with id: " + request.getTeacherId()));
 
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -108,15 +117,16 @@ public class GroupService {
         return convertToDto(groupWithRelations);
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.COURSES, CacheConfig.BRANCH_COURSES}, allEntries = true)
     @Transactional
     public GroupDto updateGroup(Long id, CreateGroupRequest request) {
         Group group = groupRepository.findByIdWithAllRelations(id)
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
 
-        Course course = courseRepository.findByIdWithBranch(request.getCourseId())
+        Course course = courseRepository.findById(request.getCourseId())
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + request.getCourseId()));
 
-        Teacher teacher = teacherRepository.findByIdWithBranch(request.getTeacherId())
+        Teacher teacher = teacherRepository.findById(request.getTeacherId())
                 .orElseThrow(() -> new RuntimeException("Teacher not found with id: " + request.getTeacherId()));
 
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -155,6 +165,7 @@ public class GroupService {
         return convertToDto(groupWithRelations);
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.COURSES, CacheConfig.BRANCH_COURSES}, allEntries = true)
     @Transactional
     public void deleteGroup(Long id) {
 //        if (!groupRepository.existsById(id)) {
@@ -227,8 +238,12 @@ public class GroupService {
             group.setStudents(new HashSet<>());
         }
 
-        group.getStudents().add(student);
+        boolean enrolled = group.getStudents().add(student);
         Group savedGroup = groupRepository.save(group);
+        if (enrolled) {
+            eventPublisher.publishEvent(BranchEvent.of(BranchEventType.STUDENT_ENROLLED, group.getBranch().getId(),
+                    studentId, Map.of("studentId", studentId, "groupId", groupId)));
+        }
 
         // Fetch with relations for DTO conversion
         Group groupWithRelations = groupRepository.findByIdWithAllRelations(savedGroup.getId())
@@ -342,23 +357,24 @@ public class GroupService {
     private void calculateStudentPayments(GroupDto dto, Group group, int year, int month) {
         List<StudentPaymentInfo> studentPayments = new ArrayList<>();
 
-        BigDecimal coursePrice = group.getCourse() != null ? group.getCourse().getPrice() : BigDecimal.ZERO;
+        BigDecimal price = group.getCourse() != null ? group.getCourse().getPrice() : BigDecimal.ZERO;
+        Money coursePrice = Money.ofNullable(price);
+
+        if (group.getStudents() != null && !group.getStudents().isEmpty()) {
+            // Month totals of the whole group in one query
+            Map<Long, BigDecimal> paidByStudent = paymentRepository
+                    .findStudentGroupTotalsForMonth(List.of(group.getId()), year, month).stream()
+                    .collect(Collectors.toMap(StudentGroupTotal::studentId, StudentGroupTotal::totalPaid));
 
-        if (group.getStudents() != null) {
             for (Student student : group.getStudents()) {
-                // Get total payment for this student in this group for the specified month
-                BigDecimal studentTotalPaid = paymentRepository.getTotalPaidByStudentInGroupForMonth(
-                        student.getId(), group.getId(), year, month
-                );
-                studentTotalPaid = studentTotalPaid != null ? studentTotalPaid : BigDecimal.ZERO;
+                Money studentTotalPaid = Money.ofNullable(paidByStudent.get(student.getId()));
 
                 // Calculate remaining amount for this student
-                BigDecimal remainingAmount = coursePrice.subtract(studentTotalPaid);
-                remainingAmount = remainingAmount.compareTo(BigDecimal.ZERO) > 0 ? remainingAmount : BigDecimal.ZERO;
+                Money remainingAmount = coursePrice.minus(studentTotalPaid).positiveOrZero();
 
                 // Determine payment status
                 String paymentStatus;
-                if (studentTotalPaid.compareTo(BigDecimal.ZERO) == 0) {
+                if (studentTotalPaid.isZero()) {
                     paymentStatus = "UNPAID";
                 } else if (studentTotalPaid.compareTo(coursePrice) >= 0) {
                     paymentStatus = "PAID";
@@ -371,9 +387,9 @@ public class GroupService {
                         student.getFirstName() + " " + student.getLastName(),
                         student.getPhoneNumber(),
                         student.getParentPhoneNumber(),
-                        studentTotalPaid,
-                        coursePrice,
-                        remainingAmount,
+                        studentTotalPaid.toBigDecimal(),
+                        price,
+                        remainingAmount.toBigDecimal(),
                         paymentStatus
                 );
 
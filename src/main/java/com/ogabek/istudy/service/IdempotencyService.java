@@ -0,0 +1,186 @@
+package com.ogabek.istudy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ogabek.istudy.entity.IdempotencyRecord;
+import com.ogabek.istudy.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a write request retried with the same {@code Idempotency-Key}.
+ * A key is scoped to the caller and branch, so two clients that happen to pick the same key stay
+ * independent. Keys live in the {@code idempotency_keys} table (unique index on scope and key) with
+ * an in-memory cache in front, so a replay is answered without touching the payment tables.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String KEY_INDEX = "ux_idempotency_keys_scope_key";
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<ScopedKey, StoredResponse> cache;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-size:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(this.ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per key. The key row is inserted before the action in the same
+     * transaction, so a concurrent duplicate blocks on the unique index and then replays the
+     * response of the request that won.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key " + MAX_KEY_LENGTH + " belgidan oshmasligi kerak");
+        }
+        ScopedKey scopedKey = new ScopedKey(scope, key);
+        String requestHash = hash(request);
+
+        Optional<T> replay = findStored(scopedKey, requestHash, responseType);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        try {
+            IdempotencyRecord saved = transactionTemplate.execute(status -> {
+                idempotencyRecordRepository.deleteExpiredKey(scope, key, LocalDateTime.now());
+
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setScope(scope);
+                record.setIdempotencyKey(key);
+                record.setRequestHash(requestHash);
+                record.setExpiresAt(expiresAt);
+                try {
+                    idempotencyRecordRepository.saveAndFlush(record);
+                } catch (DataIntegrityViolationException e) {
+                    // Only the key's own unique index means a duplicate; the payment's FK or NOT NULL errors propagate
+                    if (isKeyViolation(e)) {
+                        throw new KeyTakenException();
+                    }
+                    throw e;
+                }
+
+                record.setResponseBody(serialize(action.get()));
+                return record;
+            });
+            // Cached only after commit so a rolled-back write is never replayed
+            cache.put(scopedKey, new StoredResponse(requestHash, saved.getResponseBody(), expiresAt));
+            return deserialize(saved.getResponseBody(), responseType);
+        } catch (KeyTakenException e) {
+            // Another request with the same key committed first
+            cache.invalidate(scopedKey);
+            return findStored(scopedKey, requestHash, responseType)
+                    .orElseThrow(() -> new RuntimeException("Bu Idempotency-Key bilan so'rov hali bajarilmoqda"));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private <T> Optional<T> findStored(ScopedKey key, String requestHash, Class<T> responseType) {
+        StoredResponse stored = cache.getIfPresent(key);
+        if (stored == null) {
+            stored = idempotencyRecordRepository.findByScopeAndIdempotencyKey(key.scope(), key.key())
+                    .filter(record -> record.getResponseBody() != null)
+                    .map(record -> new StoredResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt()))
+                    .orElse(null);
+            if (stored == null) {
+                return Optional.empty();
+            }
+            cache.put(key, stored);
+        }
+
+        if (stored.expiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new RuntimeException("Bu Idempotency-Key boshqa so'rov uchun ishlatilgan!");
+        }
+        return Optional.of(deserialize(stored.body(), responseType));
+    }
+
+    private static boolean isKeyViolation(DataIntegrityViolationException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof ConstraintViolationException violation
+                && KEY_INDEX.equalsIgnoreCase(violation.getConstraintName());
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(serialize(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored idempotent response", e);
+        }
+    }
+
+    private record ScopedKey(String scope, String key) {
+    }
+
+    private record StoredResponse(String requestHash, String body, LocalDateTime expiresAt) {
+    }
+
+    // Rolls the key transaction back; the caller replays the winner's response instead
+    private static final class KeyTakenException extends RuntimeException {
+        private KeyTakenException() {
+            super(null, null, false, false);
+        }
+    }
+}
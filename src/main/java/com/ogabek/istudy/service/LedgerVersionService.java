@@ -0,0 +1,107 @@
+package com.ogabek.istudy.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-branch "ledger version": a counter bumped by every payment, expense and salary-payment write.
+ * Each branch has one counter overall and one per calendar month touched, so a cached report for a
+ * closed month keeps its key until a write lands in that month. Bulk writes whose months are not
+ * known bump a per-branch epoch that is part of every period version.
+ * Bumps run after commit: a reader that sees the new version also sees the committed rows.
+ * The counters live in memory and are per instance: with more than one instance, a write on one
+ * does not move the versions of the others, so their cached reports stay stale until the reports
+ * cache's max age ({@code app.cache.reports.max-age-minutes}) expires them. Keeping them exact across
+ * instances needs a shared version (e.g. a counter in Postgres or Redis). The analytics snapshot
+ * epochs have the same limit and are corrected by its periodic rebuild.
+ */
+@Service
+public class LedgerVersionService {
+    private final ConcurrentMap<Long, AtomicLong> branchVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PeriodKey, AtomicLong> periodVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicLong> branchEpochs = new ConcurrentHashMap<>();
+
+    // A write dated at createdAt (null = now) that belongs to the given payment/salary months
+    public void recordWrite(Long branchId, LocalDateTime createdAt, YearMonth... periods) {
+        YearMonth createdPeriod = YearMonth.from(createdAt != null ? createdAt : LocalDateTime.now());
+        Set<YearMonth> touched = Stream.concat(Stream.of(createdPeriod), Stream.of(periods))
+                .collect(Collectors.toSet());
+
+        afterCommit(() -> bump(branchId, touched));
+    }
+
+    // A write that may touch any period of the branch (e.g. deleting all payments of a course)
+    public void recordBranchWrite(Long branchId) {
+        afterCommit(() -> {
+            counter(branchEpochs, branchId).incrementAndGet();
+            counter(branchVersions, branchId).incrementAndGet();
+        });
+    }
+
+    public long branchVersion(Long branchId) {
+        AtomicLong version = branchVersions.get(branchId);
+        return version != null ? version.get() : 0L;
+    }
+
+    public long periodVersion(Long branchId, YearMonth period) {
+        return branchEpoch(branchId) + monthVersion(branchId, period);
+    }
+
+    // Sum of the month versions in the range; any write inside the range changes it
+    public long rangeVersion(Long branchId, LocalDate startDate, LocalDate endDate) {
+        long sum = branchEpoch(branchId);
+        for (YearMonth period = YearMonth.from(startDate); !period.isAfter(YearMonth.from(endDate)); period = period.plusMonths(1)) {
+            sum += monthVersion(branchId, period);
+        }
+        return sum;
+    }
+
+    // Changes only on bulk writes; holders of a full copy of the branch ledger rebuild when it moves
+    public long branchEpoch(Long branchId) {
+        AtomicLong epoch = branchEpochs.get(branchId);
+        return epoch != null ? epoch.get() : 0L;
+    }
+
+    private long monthVersion(Long branchId, YearMonth period) {
+        AtomicLong version = periodVersions.get(new PeriodKey(branchId, period));
+        return version != null ? version.get() : 0L;
+    }
+
+    private void bump(Long branchId, Set<YearMonth> periods) {
+        counter(branchVersions, branchId).incrementAndGet();
+        for (YearMonth period : periods) {
+            counter(periodVersions, new PeriodKey(branchId, period)).incrementAndGet();
+        }
+    }
+
+    private static <K> AtomicLong counter(ConcurrentMap<K, AtomicLong> counters, K key) {
+        return counters.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record PeriodKey(Long branchId, YearMonth period) {
+    }
+}
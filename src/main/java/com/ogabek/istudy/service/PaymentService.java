@@ -1,10 +1,16 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.dto.projection.PaymentRow;
+import com.ogabek.istudy.dto.projection.PaymentWriteContext;
 import com.ogabek.istudy.dto.request.CreatePaymentRequest;
+import com.ogabek.istudy.dto.request.PaymentLedgerFilter;
 import com.ogabek.istudy.dto.response.PaymentDto;
+import com.ogabek.istudy.dto.response.PaymentPageDto;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
 import com.ogabek.istudy.entity.Branch;
-import com.ogabek.istudy.entity.Course;
 import com.ogabek.istudy.entity.Group;
+import com.ogabek.istudy.entity.Money;
 import com.ogabek.istudy.entity.Payment;
 import com.ogabek.istudy.entity.Student;
 import com.ogabek.istudy.repository.BranchRepository;
@@ -13,27 +19,44 @@ import com.ogabek.istudy.repository.GroupRepository;
 import com.ogabek.istudy.repository.PaymentRepository;
 import com.ogabek.istudy.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private final PaymentRepository paymentRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
     private final BranchRepository branchRepository;
     private final GroupRepository groupRepository;
+    private final LedgerVersionService ledgerVersionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<PaymentDto> getPaymentsByBranch(Long branchId) {
-        return paymentRepository.findByBranchIdWithAllRelations(branchId).stream()
-                .map(this::convertToDto)
+        return paymentRepository.findRowsByBranchId(branchId).stream()
+                .map(PaymentRow::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -53,85 +76,141 @@ public class PaymentService {
 
     @Transactional
     public PaymentDto createPayment(CreatePaymentRequest request) {
-        Student student = studentRepository.findById(request.getStudentId())
-                .orElseThrow(() -> new RuntimeException("Student not found with id: " + request.getStudentId()));
-
-        // Get group and validate student is in this group
-        Group group = groupRepository.findByIdWithAllRelations(request.getGroupId())
-                .orElseThrow(() -> new RuntimeException("Group not found with id: " + request.getGroupId()));
-
-        // Validate student is member of this group
-        if (group.getStudents() == null || !group.getStudents().contains(student)) {
-            throw new RuntimeException("O'quvchi bu guruhda yo'q!");
-        }
-
-        // Get course from group
-        if (group.getCourse() == null) {
-            throw new RuntimeException("Guruhda kurs mavjud emas!");
-        }
-        Course course = group.getCourse();
-
-        Branch branch = branchRepository.findById(request.getBranchId())
-                .orElseThrow(() -> new RuntimeException("Branch not found with id: " + request.getBranchId()));
-
-        // Use payment year and month from request
-        int paymentYear = request.getPaymentYear();
-        int paymentMonth = request.getPaymentMonth();
-
         // Validation: Only check that payment amount is positive
         // Allow payments exceeding course price (for advance payments, penalties, etc.)
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("To'lov miqdori 0 dan katta bo'lishi kerak!");
         }
 
+        // Single query: validates membership and returns the names needed for the response
+        PaymentWriteContext context = groupRepository.findPaymentWriteContext(request.getGroupId(), request.getStudentId())
+                .orElseThrow(() -> membershipError(request));
+
+        if (!context.branchId().equals(request.getBranchId())) {
+            throw new RuntimeException("Guruh bu filialga tegishli emas!");
+        }
+
+        // References only: no SELECT is issued for the foreign keys
         Payment payment = new Payment();
-        payment.setStudent(student);
-        payment.setCourse(course);
-        payment.setGroup(group);
+        payment.setStudent(studentRepository.getReferenceById(context.studentId()));
+        payment.setCourse(courseRepository.getReferenceById(context.courseId()));
+        payment.setGroup(groupRepository.getReferenceById(context.groupId()));
         payment.setAmount(request.getAmount());
         payment.setDescription(request.getDescription());
-        payment.setBranch(branch);
-        payment.setPaymentYear(paymentYear);
-        payment.setPaymentMonth(paymentMonth);
+        payment.setBranch(branchRepository.getReferenceById(context.branchId()));
+        payment.setPaymentYear(request.getPaymentYear());
+        payment.setPaymentMonth(request.getPaymentMonth());
 
         Payment savedPayment = paymentRepository.save(payment);
+        ledgerVersionService.recordWrite(context.branchId(), null,
+                YearMonth.of(request.getPaymentYear(), request.getPaymentMonth()));
+
+        PaymentDto dto = convertToDto(savedPayment, context);
+        eventPublisher.publishEvent(BranchEvent.of(BranchEventType.PAYMENT_CREATED, dto.getBranchId(), dto.getId(), dto));
+        return dto;
+    }
+
+    // Create several payments (several children / several months) in one transaction
+    @Transactional
+    public List<PaymentDto> createPayments(Long branchId, List<CreatePaymentRequest> requests) {
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> new RuntimeException("Branch not found with id: " + branchId));
+
+        Set<Long> studentIds = requests.stream().map(CreatePaymentRequest::getStudentId).collect(Collectors.toSet());
+        Set<Long> groupIds = requests.stream().map(CreatePaymentRequest::getGroupId).collect(Collectors.toSet());
+
+        // One IN query each for students, groups (with course) and memberships
+        Map<Long, Student> students = studentRepository.findAllById(studentIds).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        Map<Long, Group> groups = groupRepository.findAllByIdWithCourse(groupIds).stream()
+                .collect(Collectors.toMap(Group::getId, Function.identity()));
+        Set<String> memberships = groupRepository.findMemberships(groupIds, studentIds).stream()
+                .map(pair -> pair[0] + ":" + pair[1])
+                .collect(Collectors.toSet());
+
+        List<Payment> payments = new ArrayList<>(requests.size());
+        for (CreatePaymentRequest request : requests) {
+            if (!branchId.equals(request.getBranchId())) {
+                throw new RuntimeException("Barcha to'lovlar bitta filialga tegishli bo'lishi kerak!");
+            }
+
+            Student student = students.get(request.getStudentId());
+            if (student == null) {
+                throw new RuntimeException("Student not found with id: " + request.getStudentId());
+            }
+            Group group = groups.get(request.getGroupId());
+            if (group == null) {
+                throw new RuntimeException("Group not found with id: " + request.getGroupId());
+            }
+            if (!branchId.equals(student.getBranch().getId()) || !branchId.equals(group.getBranch().getId())) {
+                throw new RuntimeException("O'quvchi yoki guruh bu filialga tegishli emas!");
+            }
+            if (!memberships.contains(group.getId() + ":" + student.getId())) {
+                throw new RuntimeException("O'quvchi bu guruhda yo'q!");
+            }
+            if (group.getCourse() == null) {
+                throw new RuntimeException("Guruhda kurs mavjud emas!");
+            }
+            if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("To'lov miqdori 0 dan katta bo'lishi kerak!");
+            }
+
+            Payment payment = new Payment();
+            payment.setStudent(student);
+            payment.setCourse(group.getCourse());
+            payment.setGroup(group);
+            payment.setAmount(request.getAmount());
+            payment.setDescription(request.getDescription());
+            payment.setBranch(branch);
+            payment.setPaymentYear(request.getPaymentYear());
+            payment.setPaymentMonth(request.getPaymentMonth());
+            payments.add(payment);
+        }
 
-        // Fetch the saved payment with all relations for proper DTO conversion
-        Payment paymentWithRelations = paymentRepository.findByIdWithAllRelations(savedPayment.getId())
-                .orElseThrow(() -> new RuntimeException("Failed to fetch created payment"));
+        ledgerVersionService.recordWrite(branchId, null, requests.stream()
+                .map(request -> YearMonth.of(request.getPaymentYear(), request.getPaymentMonth()))
+                .distinct()
+                .toArray(YearMonth[]::new));
 
-        return convertToDto(paymentWithRelations);
+        // Inserted as one JDBC batch; every relation needed by the DTO is already loaded
+        List<PaymentDto> dtos = paymentRepository.saveAll(payments).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        dtos.forEach(dto -> eventPublisher.publishEvent(
+                BranchEvent.of(BranchEventType.PAYMENT_CREATED, branchId, dto.getId(), dto)));
+        return dtos;
     }
 
     // NEW: Update payment amount - allows overpayment
     @Transactional
     public PaymentDto updatePaymentAmount(Long id, BigDecimal newAmount) {
-        // Get existing payment
-        Payment payment = paymentRepository.findByIdWithAllRelations(id)
-                .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
-
         // Validate new amount is positive
         if (newAmount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("To'lov miqdori 0 dan katta bo'lishi kerak!");
         }
 
-        // Update payment amount - no maximum limit check
-        payment.setAmount(newAmount);
-        Payment savedPayment = paymentRepository.save(payment);
+        // Get existing payment (relations are fetched, so the DTO needs no further reads)
+        Payment payment = paymentRepository.findByIdWithAllRelations(id)
+                .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
 
-        // Return updated payment with all relations
-        Payment updatedPaymentWithRelations = paymentRepository.findByIdWithAllRelations(savedPayment.getId())
-                .orElseThrow(() -> new RuntimeException("Failed to fetch updated payment"));
+        // Update payment amount - no maximum limit check; flushed by dirty checking on commit
+        payment.setAmount(newAmount);
+        ledgerVersionService.recordWrite(payment.getBranch().getId(), payment.getCreatedAt(),
+                YearMonth.of(payment.getPaymentYear(), payment.getPaymentMonth()));
 
-        return convertToDto(updatedPaymentWithRelations);
+        PaymentDto dto = convertToDto(payment);
+        eventPublisher.publishEvent(BranchEvent.of(BranchEventType.PAYMENT_UPDATED, dto.getBranchId(), dto.getId(), dto));
+        return dto;
     }
 
     @Transactional
     public void deletePayment(Long id) {
-        if (!paymentRepository.existsById(id)) {
-            throw new RuntimeException("Payment not found with id: " + id);
-        }
-        paymentRepository.deleteById(id);
+        Payment payment = paymentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
+        paymentRepository.delete(payment);
+        ledgerVersionService.recordWrite(payment.getBranch().getId(), payment.getCreatedAt(),
+                YearMonth.of(payment.getPaymentYear(), payment.getPaymentMonth()));
+        eventPublisher.publishEvent(BranchEvent.of(BranchEventType.PAYMENT_DELETED, payment.getBranch().getId(), id, null));
     }
 
     // Get payments by date range
@@ -155,17 +234,16 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
 
-    // Search payments by student name
+    // Search payments by student name: one page, newest first, filtered and limited in SQL
     @Transactional(readOnly = true)
-    public List<PaymentDto> searchPaymentsByStudentName(Long branchId, String studentName) {
-        return paymentRepository.findByBranchIdWithAllRelations(branchId).stream()
-                .filter(payment -> {
-                    if (payment.getStudent() != null) {
-                        String fullName = payment.getStudent().getFirstName() + " " + payment.getStudent().getLastName();
-                        return fullName.toLowerCase().contains(studentName.toLowerCase());
-                    }
-                    return false;
-                })
+    public List<PaymentDto> searchPaymentsByStudentName(Long branchId, String studentName, int limit,
+                                                        LocalDateTime beforeCreatedAt, Long beforeId) {
+        List<Long> ids = paymentRepository.searchPageIdsByStudentName(branchId, escapeLike(studentName.trim()),
+                cursorCreatedAt(beforeCreatedAt), cursorId(beforeId), pageSize(limit));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return paymentRepository.findAllByIdWithAllRelations(ids).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -173,12 +251,134 @@ public class PaymentService {
     // Get recent payments
     @Transactional(readOnly = true)
     public List<PaymentDto> getRecentPayments(Long branchId, int limit) {
-        return paymentRepository.findByBranchIdWithAllRelations(branchId).stream()
-                .limit(limit)
+        return getRecentPayments(branchId, limit, null, null);
+    }
+
+    // Get recent payments; pass the last row's createdAt and id to load the next page
+    @Transactional(readOnly = true)
+    public List<PaymentDto> getRecentPayments(Long branchId, int limit, LocalDateTime beforeCreatedAt, Long beforeId) {
+        return paymentRepository.findPageByBranchId(branchId, cursorCreatedAt(beforeCreatedAt), cursorId(beforeId),
+                        PageRequest.of(0, pageSize(limit)))
+                .stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    // Payment ledger: one filtered page, newest first, with page totals and the cursor of the next page
+    @Transactional(readOnly = true)
+    public PaymentPageDto getLedgerPage(PaymentLedgerFilter filter) {
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            String[] cursor = decodeCursor(filter.getCursor());
+            beforeCreatedAt = LocalDateTime.parse(cursor[0]);
+            beforeId = Long.parseLong(cursor[1]);
+        }
+
+        int limit = pageSize(filter.getLimit());
+        // One extra row tells whether another page exists
+        List<Payment> rows = paymentRepository.findLedgerPage(
+                filter.getBranchId(),
+                filter.getStudentId(),
+                filter.getGroupId(),
+                filter.getCourseId(),
+                filter.getStatus(),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                filter.getYear(),
+                filter.getMonth(),
+                filter.getStartDate() != null ? filter.getStartDate().atStartOfDay() : LEDGER_START,
+                filter.getEndDate() != null ? filter.getEndDate().atTime(LocalTime.MAX) : CURSOR_START,
+                cursorCreatedAt(beforeCreatedAt),
+                cursorId(beforeId),
+                PageRequest.of(0, limit + 1));
+
+        boolean hasMore = rows.size() > limit;
+        List<Payment> page = hasMore ? rows.subList(0, limit) : rows;
+
+        Money pageTotal = Money.ZERO;
+        List<PaymentDto> items = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            pageTotal = pageTotal.plus(Money.of(payment.getAmount()));
+            items.add(convertToDto(payment));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Payment last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new PaymentPageDto(items, nextCursor, hasMore, items.size(), pageTotal.toBigDecimal());
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Noto'g'ri cursor: " + cursor);
+        }
+    }
+
+    // Keyset cursor helpers: no cursor means "start from the newest payment"
+    private LocalDateTime cursorCreatedAt(LocalDateTime beforeCreatedAt) {
+        return beforeCreatedAt != null ? beforeCreatedAt : CURSOR_START;
+    }
+
+    private Long cursorId(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // The user's text is matched literally: % and _ are not wildcards
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Cold path: work out which of student, group or membership is missing
+    private RuntimeException membershipError(CreatePaymentRequest request) {
+        if (!studentRepository.existsById(request.getStudentId())) {
+            return new RuntimeException("Student not found with id: " + request.getStudentId());
+        }
+        if (!groupRepository.existsById(request.getGroupId())) {
+            return new RuntimeException("Group not found with id: " + request.getGroupId());
+        }
+        return new RuntimeException("O'quvchi bu guruhda yo'q!");
+    }
+
+    // Builds the response of a new payment from the write context instead of reloading it
+    private PaymentDto convertToDto(Payment payment, PaymentWriteContext context) {
+        PaymentDto dto = new PaymentDto();
+        dto.setId(payment.getId());
+        dto.setStudentId(context.studentId());
+        dto.setStudentName(context.studentFirstName() + " " + context.studentLastName());
+        dto.setCourseId(context.courseId());
+        dto.setCourseName(context.courseName());
+        dto.setGroupId(context.groupId());
+        dto.setGroupName(context.groupName());
+        dto.setAmount(payment.getAmount());
+        dto.setPaymentYear(payment.getPaymentYear());
+        dto.setPaymentMonth(payment.getPaymentMonth());
+        dto.setDescription(payment.getDescription());
+        dto.setStatus(payment.getStatus().name());
+        dto.setBranchId(context.branchId());
+        dto.setBranchName(context.branchName());
+        dto.setCreatedAt(payment.getCreatedAt());
+        return dto;
+    }
+
     private PaymentDto convertToDto(Payment payment) {
         PaymentDto dto = new PaymentDto();
         dto.setId(payment.getId());
@@ -196,6 +396,8 @@ public class PaymentService {
         }
 
         dto.setAmount(payment.getAmount());
+        dto.setPaymentYear(payment.getPaymentYear());
+        dto.setPaymentMonth(payment.getPaymentMonth());
         dto.setDescription(payment.getDescription());
         dto.setStatus(payment.getStatus().name());
 
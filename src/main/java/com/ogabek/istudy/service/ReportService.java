@@ -2,18 +2,23 @@
 
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.config.CacheConfig;
 import com.ogabek.istudy.repository.ExpenseRepository;
 import com.ogabek.istudy.repository.PaymentRepository;
 import com.ogabek.istudy.repository.TeacherSalaryPaymentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -21,9 +26,72 @@ public class ReportService {
     private final PaymentRepository paymentRepository;
     private final ExpenseRepository expenseRepository;
     private final TeacherSalaryPaymentRepository salaryPaymentRepository;
+    private final LedgerVersionService ledgerVersionService;
+    private final CacheManager cacheManager;
+    private final SingleFlightService singleFlightService;
+    private final DataVersionService dataVersionService;
 
     // Enhanced Expense Reports (now including salary payments)
     public Map<String, Object> getDailyExpenseReport(Long branchId, LocalDate date) {
+        long version = ledgerVersionService.periodVersion(branchId, YearMonth.from(date));
+        return cached(new ReportKey("DAILY_EXPENSE", branchId, date, version),
+                () -> buildDailyExpenseReport(branchId, date));
+    }
+
+    public Map<String, Object> getMonthlyExpenseReport(Long branchId, int year, int month) {
+        YearMonth period = period(year, month);
+        long version = ledgerVersionService.periodVersion(branchId, period);
+        return cached(new ReportKey("MONTHLY_EXPENSE", branchId, period, version),
+                () -> buildMonthlyExpenseReport(branchId, year, month));
+    }
+
+    public Map<String, Object> getExpenseRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
+        long version = ledgerVersionService.rangeVersion(branchId, startDate, endDate);
+        return cached(new ReportKey("RANGE_EXPENSE", branchId, startDate + "/" + endDate, version),
+                () -> buildExpenseRangeReport(branchId, startDate, endDate));
+    }
+
+    public Map<String, Object> getAllTimeExpenseReport(Long branchId) {
+        long version = ledgerVersionService.branchVersion(branchId);
+        return cached(new ReportKey("ALL_TIME_EXPENSE", branchId, "ALL", version),
+                () -> buildAllTimeExpenseReport(branchId));
+    }
+
+    // Enhanced Financial Summary (using actual salary payments)
+    public Map<String, Object> getFinancialSummary(Long branchId, int year, int month) {
+        YearMonth period = period(year, month);
+        long version = ledgerVersionService.periodVersion(branchId, period);
+        return cached(new ReportKey("FINANCIAL_SUMMARY", branchId, period, version),
+                () -> buildFinancialSummary(branchId, year, month));
+    }
+
+    public Map<String, Object> getFinancialSummaryRange(Long branchId, LocalDate startDate, LocalDate endDate) {
+        long version = ledgerVersionService.rangeVersion(branchId, startDate, endDate);
+        return cached(new ReportKey("FINANCIAL_SUMMARY_RANGE", branchId, startDate + "/" + endDate, version),
+                () -> buildFinancialSummaryRange(branchId, startDate, endDate));
+    }
+
+    // Payment Reports (keep existing methods)
+    public Map<String, Object> getDailyPaymentReport(Long branchId, LocalDate date) {
+        long version = ledgerVersionService.periodVersion(branchId, YearMonth.from(date));
+        return cached(new ReportKey("DAILY_PAYMENT", branchId, date, version),
+                () -> buildDailyPaymentReport(branchId, date));
+    }
+
+    public Map<String, Object> getMonthlyPaymentReport(Long branchId, int year, int month) {
+        YearMonth period = period(year, month);
+        long version = ledgerVersionService.periodVersion(branchId, period);
+        return cached(new ReportKey("MONTHLY_PAYMENT", branchId, period, version),
+                () -> buildMonthlyPaymentReport(branchId, year, month));
+    }
+
+    public Map<String, Object> getPaymentRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
+        long version = ledgerVersionService.rangeVersion(branchId, startDate, endDate);
+        return cached(new ReportKey("RANGE_PAYMENT", branchId, startDate + "/" + endDate, version),
+                () -> buildPaymentRangeReport(branchId, startDate, endDate));
+    }
+
+    private Map<String, Object> buildDailyExpenseReport(Long branchId, LocalDate date) {
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
@@ -43,7 +111,7 @@ public class ReportService {
         return report;
     }
 
-    public Map<String, Object> getMonthlyExpenseReport(Long branchId, int year, int month) {
+    private Map<String, Object> buildMonthlyExpenseReport(Long branchId, int year, int month) {
         BigDecimal regularExpenses = expenseRepository.sumMonthlyExpenses(branchId, year, month);
         BigDecimal salaryExpenses = salaryPaymentRepository.sumMonthlySalaryPayments(branchId, year, month);
         BigDecimal totalExpenses = (regularExpenses != null ? regularExpenses : BigDecimal.ZERO)
@@ -61,7 +129,7 @@ public class ReportService {
         return report;
     }
 
-    public Map<String, Object> getExpenseRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
+    private Map<String, Object> buildExpenseRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(LocalTime.MAX);
 
@@ -82,7 +150,7 @@ public class ReportService {
         return report;
     }
 
-    public Map<String, Object> getAllTimeExpenseReport(Long branchId) {
+    private Map<String, Object> buildAllTimeExpenseReport(Long branchId) {
         BigDecimal regularExpenses = expenseRepository.sumAllTimeExpenses(branchId);
         BigDecimal salaryExpenses = salaryPaymentRepository.sumAllTimeSalaryPayments(branchId);
         BigDecimal totalExpenses = (regularExpenses != null ? regularExpenses : BigDecimal.ZERO)
@@ -98,8 +166,7 @@ public class ReportService {
         return report;
     }
 
-    // Enhanced Financial Summary (using actual salary payments)
-    public Map<String, Object> getFinancialSummary(Long branchId, int year, int month) {
+    private Map<String, Object> buildFinancialSummary(Long branchId, int year, int month) {
         BigDecimal totalPayments = paymentRepository.sumMonthlyPayments(branchId, year, month);
         BigDecimal regularExpenses = expenseRepository.sumMonthlyExpenses(branchId, year, month);
         BigDecimal salaryPayments = salaryPaymentRepository.sumMonthlySalaryPayments(branchId, year, month);
@@ -123,7 +190,7 @@ public class ReportService {
         return summary;
     }
 
-    public Map<String, Object> getFinancialSummaryRange(Long branchId, LocalDate startDate, LocalDate endDate) {
+    private Map<String, Object> buildFinancialSummaryRange(Long branchId, LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(LocalTime.MAX);
 
@@ -150,8 +217,7 @@ public class ReportService {
         return summary;
     }
 
-    // Payment Reports (keep existing methods)
-    public Map<String, Object> getDailyPaymentReport(Long branchId, LocalDate date) {
+    private Map<String, Object> buildDailyPaymentReport(Long branchId, LocalDate date) {
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
 
@@ -166,7 +232,7 @@ public class ReportService {
         return report;
     }
 
-    public Map<String, Object> getMonthlyPaymentReport(Long branchId, int year, int month) {
+    private Map<String, Object> buildMonthlyPaymentReport(Long branchId, int year, int month) {
         BigDecimal totalPayments = paymentRepository.sumMonthlyPayments(branchId, year, month);
 
         Map<String, Object> report = new HashMap<>();
@@ -179,7 +245,7 @@ public class ReportService {
         return report;
     }
 
-    public Map<String, Object> getPaymentRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
+    private Map<String, Object> buildPaymentRangeReport(Long branchId, LocalDate startDate, LocalDate endDate) {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(LocalTime.MAX);
 
@@ -194,4 +260,36 @@ public class ReportService {
 
         return report;
     }
-}
\ No newline at end of file
+
+    // Reports are keyed by the ledger version of their period, so a write makes old entries unreachable
+    // A miss is built once even when several identical requests arrive before the first one finishes.
+    // Built outside the cache's compute (which holds a map lock) so a virtual thread is not pinned during the queries.
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> cached(ReportKey key, Supplier<Map<String, Object>> report) {
+        // Cached under the current ledger version, so it must not be read from a lagging replica
+        dataVersionService.pinRead(key.branchId());
+        Cache cache = cacheManager.getCache(CacheConfig.REPORTS);
+        if (cache == null) {
+            return singleFlightService.execute("report", key, report);
+        }
+        Cache.ValueWrapper hit = cache.get(key);
+        if (hit != null) {
+            return (Map<String, Object>) hit.get();
+        }
+        return singleFlightService.execute("report", key, () -> {
+            Map<String, Object> result = report.get();
+            cache.put(key, result);
+            return result;
+        });
+    }
+
+    private static YearMonth period(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new RuntimeException("Oy 1 dan 12 gacha bo'lishi kerak!");
+        }
+        return YearMonth.of(year, month);
+    }
+
+    private record ReportKey(String type, Long branchId, Object period, long version) {
+    }
+}
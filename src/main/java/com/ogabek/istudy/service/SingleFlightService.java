@@ -0,0 +1,75 @@
+package com.ogabek.istudy.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for expensive reads: concurrent calls with the same operation and key share one
+ * in-flight computation instead of each running the same queries. Nothing is kept after the
+ * computation finishes. A flight may still be running when a write commits, so callers put the
+ * {@link DataVersionService} version (or ledger version) into the key: a call made after the write
+ * sees the bumped version and starts its own flight instead of joining one that read before it.
+ * The loader runs in its own read-only transaction; waiting callers hold no database connection.
+ * Every caller receives the same result instance and must not modify it.
+ */
+@Service
+public class SingleFlightService {
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> loader) {
+        FlightKey flightKey = new FlightKey(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            meterRegistry.counter("istudy.singleflight.coalesced", "operation", operation).increment();
+            return (T) await(existing);
+        }
+
+        meterRegistry.counter("istudy.singleflight.executed", "operation", operation).increment();
+        try {
+            T result = readOnlyTransaction.execute(status -> loader.get());
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Waiting callers see the leader's exception as if they had run the call themselves
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+}
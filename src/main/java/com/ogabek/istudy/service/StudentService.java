@@ -1,18 +1,26 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.dto.projection.StudentCourseTotal;
+import com.ogabek.istudy.dto.projection.StudentGroupRow;
+import com.ogabek.istudy.dto.projection.StudentPaymentSummary;
+import com.ogabek.istudy.dto.projection.StudentRow;
 import com.ogabek.istudy.dto.request.CreateStudentRequest;
 import com.ogabek.istudy.dto.response.GroupDto;
 import com.ogabek.istudy.dto.response.PaymentDto;
 import com.ogabek.istudy.dto.response.StudentDto;
 import com.ogabek.istudy.dto.response.UnpaidStudentDto;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
 import com.ogabek.istudy.entity.Branch;
 import com.ogabek.istudy.entity.Group;
+import com.ogabek.istudy.entity.Money;
 import com.ogabek.istudy.entity.Student;
 import com.ogabek.istudy.repository.BranchRepository;
 import com.ogabek.istudy.repository.GroupRepository;
 import com.ogabek.istudy.repository.PaymentRepository;
 import com.ogabek.istudy.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,23 +37,62 @@ public class StudentService {
     private final BranchRepository branchRepository;
     private final PaymentRepository paymentRepository;
     private final GroupRepository groupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlightService singleFlightService;
+    private final DataVersionService dataVersionService;
 
-    @Transactional(readOnly = true)
     public List<StudentDto> getStudentsByBranch(Long branchId) {
-        LocalDate now = LocalDate.now();
-        return studentRepository.findByBranchIdWithBranch(branchId).stream()
-                .map(student -> convertToDto(student, now.getYear(), now.getMonthValue()))
-                .collect(Collectors.toList());
+        return getStudentsByBranch(branchId, null, null);
     }
 
-    @Transactional(readOnly = true)
     public List<StudentDto> getStudentsByBranch(Long branchId, Integer year, Integer month) {
         LocalDate now = LocalDate.now();
         int targetYear = year != null ? year : now.getYear();
         int targetMonth = month != null ? month : now.getMonthValue();
+        // The data version keeps a request that arrives after a write from joining a flight that read before it
+        return singleFlightService.execute("branch-students",
+                List.of(branchId, dataVersionService.branchVersion(branchId), targetYear, targetMonth),
+                () -> loadStudentsByBranch(branchId, targetYear, targetMonth));
+    }
 
-        return studentRepository.findByBranchIdWithBranch(branchId).stream()
-                .map(student -> convertToDto(student, targetYear, targetMonth))
+    // Whole branch in four queries: students, memberships, payment aggregates are read as rows and joined here
+    private List<StudentDto> loadStudentsByBranch(Long branchId, int targetYear, int targetMonth) {
+        return assembleStudents(studentRepository.findRowsByBranchId(branchId),
+                groupRepository.findStudentGroupRowsByBranchId(branchId),
+                paymentRepository.findStudentPaymentSummaries(branchId, targetYear, targetMonth));
+    }
+
+    // Pure in-memory join of the branch rows (also driven directly by the JMH benchmarks)
+    static List<StudentDto> assembleStudents(List<StudentRow> students, List<StudentGroupRow> studentGroups,
+                                             List<StudentPaymentSummary> paymentSummaries) {
+        Map<Long, List<StudentGroupRow>> groupsByStudent = studentGroups.stream()
+                .collect(Collectors.groupingBy(StudentGroupRow::studentId));
+        Map<Long, StudentPaymentSummary> paymentsByStudent = paymentSummaries.stream()
+                .collect(Collectors.toMap(StudentPaymentSummary::studentId, summary -> summary));
+
+        return students.stream()
+                .map(row -> {
+                    StudentDto dto = row.toDto();
+                    List<StudentGroupRow> groups = groupsByStudent.getOrDefault(row.id(), List.of());
+                    dto.setGroups(groups.stream()
+                            .map(StudentGroupRow::toGroupInfo)
+                            .collect(Collectors.toList()));
+
+                    Money expectedPayment = Money.ZERO;
+                    for (StudentGroupRow group : groups) {
+                        if (group.coursePrice() != null) {
+                            expectedPayment = expectedPayment.plus(Money.of(group.coursePrice()));
+                        }
+                    }
+                    StudentPaymentSummary summary = paymentsByStudent.get(row.id());
+                    if (summary != null) {
+                        applyPaymentStatus(dto, summary.paymentsInMonth() > 0, Money.ofNullable(summary.totalPaidInMonth()),
+                                expectedPayment, summary.lastPaymentDate());
+                    } else {
+                        applyPaymentStatus(dto, false, Money.ZERO, expectedPayment, null);
+                    }
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
@@ -67,49 +114,43 @@ public class StudentService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public List<UnpaidStudentDto> getUnpaidStudents(Long branchId, Integer year, Integer month) {
-        List<UnpaidStudentDto> result = new ArrayList<>();
-        List<Group> branchGroups = groupRepository.findByBranchIdWithAllRelations(branchId);
-
-        for (Group group : branchGroups) {
-            if (group.getStudents() != null && group.getCourse() != null) {
-                for (Student student : group.getStudents()) {
-                    BigDecimal totalPaid;
-
-                    if (year == null || month == null) {
-                        // All-time unpaid
-                        totalPaid = paymentRepository.findByStudentIdWithRelations(student.getId())
-                                .stream()
-                                .filter(payment -> payment.getCourse().getId().equals(group.getCourse().getId()))
-                                .map(payment -> payment.getAmount())
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    } else {
-                        // Monthly unpaid
-                        totalPaid = paymentRepository.findByStudentIdWithRelations(student.getId())
-                                .stream()
-                                .filter(payment -> payment.getPaymentYear() == year &&
-                                        payment.getPaymentMonth() == month &&
-                                        payment.getCourse().getId().equals(group.getCourse().getId()))
-                                .map(payment -> payment.getAmount())
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    }
+        // Arrays.asList: year and month may be null (all-time report)
+        return singleFlightService.execute("unpaid-students",
+                Arrays.asList(branchId, dataVersionService.branchVersion(branchId), year, month),
+                () -> loadUnpaidStudents(branchId, year, month));
+    }
 
-                    BigDecimal remainingAmount = group.getCourse().getPrice().subtract(totalPaid);
+    // Three queries for the whole branch: students, memberships and (student, course) payment totals
+    private List<UnpaidStudentDto> loadUnpaidStudents(Long branchId, Integer year, Integer month) {
+        Map<Long, StudentRow> students = studentRepository.findRowsByBranchId(branchId).stream()
+                .collect(Collectors.toMap(StudentRow::id, row -> row));
+        List<StudentCourseTotal> totals = year == null || month == null
+                ? paymentRepository.findStudentCourseTotals(branchId)                    // All-time unpaid
+                : paymentRepository.findStudentCourseTotalsForMonth(branchId, year, month); // Monthly unpaid
+        Map<List<Long>, BigDecimal> paidByStudentAndCourse = totals.stream()
+                .collect(Collectors.toMap(total -> List.of(total.studentId(), total.courseId()), StudentCourseTotal::totalPaid));
 
-                    if (remainingAmount.compareTo(BigDecimal.ZERO) > 0) {
-                        result.add(new UnpaidStudentDto(
-                                student.getId(),
-                                student.getFirstName(),
-                                student.getLastName(),
-                                student.getPhoneNumber(),
-                                student.getParentPhoneNumber(),
-                                remainingAmount,
-                                group.getId(),
-                                group.getName()
-                        ));
-                    }
-                }
+        List<UnpaidStudentDto> result = new ArrayList<>();
+        for (StudentGroupRow membership : groupRepository.findStudentGroupRowsByBranchId(branchId)) {
+            StudentRow student = students.get(membership.studentId());
+            if (student == null || membership.courseId() == null) {
+                continue;
+            }
+            Money totalPaid = Money.ofNullable(paidByStudentAndCourse.get(List.of(student.id(), membership.courseId())));
+            Money remainingAmount = Money.of(membership.coursePrice()).minus(totalPaid);
+
+            if (remainingAmount.isPositive()) {
+                result.add(new UnpaidStudentDto(
+                        student.id(),
+                        student.firstName(),
+                        student.lastName(),
+                        student.phoneNumber(),
+                        student.parentPhoneNumber(),
+                        remainingAmount.toBigDecimal(),
+                        membership.groupId(),
+                        membership.groupName()
+                ));
             }
         }
 
@@ -142,8 +183,12 @@ public class StudentService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Object> getStudentStatistics(Long branchId) {
+        return singleFlightService.execute("student-statistics", List.of(branchId, dataVersionService.branchVersion(branchId)),
+                () -> loadStudentStatistics(branchId));
+    }
+
+    private Map<String, Object> loadStudentStatistics(Long branchId) {
         List<Student> allStudents = studentRepository.findByBranchId(branchId);
         LocalDate now = LocalDate.now();
         List<Student> unpaidStudents = studentRepository.findUnpaidStudentsByBranchAndMonth(
@@ -218,6 +263,8 @@ public class StudentService {
                 }
                 group.getStudents().add(savedStudent);
                 groupRepository.save(group);
+                eventPublisher.publishEvent(BranchEvent.of(BranchEventType.STUDENT_ENROLLED, branch.getId(),
+                        savedStudent.getId(), Map.of("studentId", savedStudent.getId(), "groupId", groupId)));
             }
         }
 
@@ -349,31 +396,38 @@ public class StudentService {
     private void calculatePaymentStatus(StudentDto dto, Long studentId, int year, int month) {
         // Check if student has paid in the specified month
         Boolean hasPaid = studentRepository.hasStudentPaidInMonth(studentId, year, month);
-        dto.setHasPaidInMonth(hasPaid != null ? hasPaid : false);
 
         // Get total amount paid in the month
         BigDecimal totalPaid = studentRepository.getTotalPaidByStudentInMonth(studentId, year, month);
-        dto.setTotalPaidInMonth(totalPaid != null ? totalPaid : BigDecimal.ZERO);
 
         // Get expected monthly payment amount
         BigDecimal expectedPayment = studentRepository.getExpectedMonthlyPaymentForStudent(studentId);
-        expectedPayment = expectedPayment != null ? expectedPayment : BigDecimal.ZERO;
+
+        // Get last payment date
+        LocalDateTime lastPaymentDate = studentRepository.getLastPaymentDate(studentId);
+
+        applyPaymentStatus(dto, hasPaid != null ? hasPaid : false, Money.ofNullable(totalPaid),
+                Money.ofNullable(expectedPayment), lastPaymentDate);
+    }
+
+    // Shared by the single-student path and the list rows
+    private static void applyPaymentStatus(StudentDto dto, boolean hasPaid, Money totalPaid,
+                                           Money expectedPayment, LocalDateTime lastPaymentDate) {
+        dto.setHasPaidInMonth(hasPaid);
+        dto.setTotalPaidInMonth(totalPaid.toBigDecimal());
 
         // Calculate remaining amount
-        BigDecimal remaining = expectedPayment.subtract(dto.getTotalPaidInMonth());
-        dto.setRemainingAmount(remaining.compareTo(BigDecimal.ZERO) > 0 ? remaining : BigDecimal.ZERO);
+        dto.setRemainingAmount(expectedPayment.minus(totalPaid).positiveOrZero().toBigDecimal());
 
         // Determine payment status
-        if (dto.getTotalPaidInMonth().compareTo(BigDecimal.ZERO) == 0) {
+        if (totalPaid.isZero()) {
             dto.setPaymentStatus("UNPAID");
-        } else if (dto.getTotalPaidInMonth().compareTo(expectedPayment) >= 0) {
+        } else if (totalPaid.compareTo(expectedPayment) >= 0) {
             dto.setPaymentStatus("PAID");
         } else {
             dto.setPaymentStatus("PARTIAL");
         }
 
-        // Get last payment date
-        LocalDateTime lastPaymentDate = studentRepository.getLastPaymentDate(studentId);
         dto.setLastPaymentDate(lastPaymentDate);
     }
 
@@ -388,6 +442,8 @@ public class StudentService {
         dto.setGroupId(payment.getGroup().getId()); // NEW
         dto.setGroupName(payment.getGroup().getName()); // NEW
         dto.setAmount(payment.getAmount());
+        dto.setPaymentYear(payment.getPaymentYear());
+        dto.setPaymentMonth(payment.getPaymentMonth());
         dto.setDescription(payment.getDescription());
         dto.setStatus(payment.getStatus().name());
         dto.setBranchId(payment.getBranch().getId());
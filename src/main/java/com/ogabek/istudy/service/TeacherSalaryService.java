@@ -1,21 +1,27 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.dto.projection.StudentGroupTotal;
 import com.ogabek.istudy.dto.request.CreateSalaryPaymentRequest;
 import com.ogabek.istudy.dto.response.GroupSalaryInfo;
 import com.ogabek.istudy.dto.response.SalaryCalculationDto;
 import com.ogabek.istudy.dto.response.TeacherSalaryHistoryDto;
 import com.ogabek.istudy.dto.response.TeacherSalaryPaymentDto;
 import com.ogabek.istudy.entity.*;
+import com.ogabek.istudy.event.BranchEvent;
+import com.ogabek.istudy.event.BranchEventType;
 import com.ogabek.istudy.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +32,10 @@ public class TeacherSalaryService {
     private final BranchRepository branchRepository;
     private final PaymentRepository paymentRepository;
     private final GroupRepository groupRepository;
+    private final LedgerVersionService ledgerVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlightService singleFlightService;
+    private final DataVersionService dataVersionService;
 
     // Calculate salary on-demand (not stored) with detailed group information
     @Transactional(readOnly = true)
@@ -33,12 +43,15 @@ public class TeacherSalaryService {
         Teacher teacher = teacherRepository.findByIdWithBranch(teacherId)
                 .orElseThrow(() -> new RuntimeException("Teacher not found with id: " + teacherId));
 
-        // Get teacher's groups with relations
-        List<Group> teacherGroups = groupRepository.findByTeacherIdWithRelations(teacherId);
+        // Teacher's groups with students, and every (student, group) month total in one query
+        List<Group> teacherGroups = groupRepository.findByTeacherIdWithStudents(teacherId);
+        Map<List<Long>, BigDecimal> paidByStudentAndGroup = teacherGroups.isEmpty() ? Map.of() : paymentRepository
+                .findStudentGroupTotalsForMonth(teacherGroups.stream().map(Group::getId).toList(), year, month).stream()
+                .collect(Collectors.toMap(total -> List.of(total.studentId(), total.groupId()), StudentGroupTotal::totalPaid));
 
         // Calculate group salary information with enhanced details
         List<GroupSalaryInfo> groupInfos = new ArrayList<>();
-        BigDecimal totalStudentPayments = BigDecimal.ZERO;
+        Money totalStudentPayments = Money.ZERO;
         int totalPaidStudents = 0;
 
         for (Group group : teacherGroups) {
@@ -47,23 +60,22 @@ public class TeacherSalaryService {
 
             // Count students in this group who paid in the specified month
             int paidStudentCount = 0;
-            BigDecimal groupPayments = BigDecimal.ZERO;
+            Money groupPayments = Money.ZERO;
 
             if (group.getStudents() != null) {
                 for (Student student : group.getStudents()) {
                     // Check if student made payment for this group in the specified month
-                    BigDecimal studentGroupPayment = paymentRepository.getTotalPaidByStudentInGroupForMonth(
-                            student.getId(), group.getId(), year, month);
+                    Money studentGroupPayment = Money.ofNullable(paidByStudentAndGroup.get(List.of(student.getId(), group.getId())));
 
-                    if (studentGroupPayment.compareTo(BigDecimal.ZERO) > 0) {
+                    if (studentGroupPayment.isPositive()) {
                         paidStudentCount++;
-                        groupPayments = groupPayments.add(studentGroupPayment);
+                        groupPayments = groupPayments.plus(studentGroupPayment);
                     }
                 }
             }
 
             totalPaidStudents += paidStudentCount;
-            totalStudentPayments = totalStudentPayments.add(groupPayments);
+            totalStudentPayments = totalStudentPayments.plus(groupPayments);
 
             // Get course price for reference
             BigDecimal coursePrice = group.getCourse() != null ? group.getCourse().getPrice() : BigDecimal.ZERO;
@@ -73,52 +85,20 @@ public class TeacherSalaryService {
                     group.getId(),
                     group.getName(),
                     group.getCourse() != null ? group.getCourse().getName() : "N/A",
-                    paidStudentCount,           // students who paid
-                    groupPayments,              // total payments from this group
-                    totalStudentsInGroup,       // total enrolled students
-                    coursePrice                 // course price for reference
+                    paidStudentCount,             // students who paid
+                    groupPayments.toBigDecimal(), // total payments from this group
+                    totalStudentsInGroup,         // total enrolled students
+                    coursePrice                   // course price for reference
             );
             groupInfos.add(groupInfo);
         }
 
         // Calculate salary based on teacher's salary type
         BigDecimal baseSalary = teacher.getBaseSalary() != null ? teacher.getBaseSalary() : BigDecimal.ZERO;
-        BigDecimal paymentBasedSalary = BigDecimal.ZERO;
-        BigDecimal totalSalary;
-
-        // Calculate salary according to teacher's salary type
-        switch (teacher.getSalaryType()) {
-            case FIXED:
-                // Fixed salary regardless of student payments
-                totalSalary = baseSalary;
-                paymentBasedSalary = BigDecimal.ZERO;
-                break;
-
-            case PERCENTAGE:
-                // Salary is percentage of total student payments
-                if (teacher.getPaymentPercentage() != null) {
-                    paymentBasedSalary = totalStudentPayments
-                            .multiply(teacher.getPaymentPercentage())
-                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                }
-                totalSalary = paymentBasedSalary;
-                break;
-
-            case MIXED:
-                // Combination of base salary + percentage of payments
-                if (teacher.getPaymentPercentage() != null) {
-                    paymentBasedSalary = totalStudentPayments
-                            .multiply(teacher.getPaymentPercentage())
-                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                }
-                totalSalary = baseSalary.add(paymentBasedSalary);
-                break;
-
-            default:
-                // Default to fixed salary if type is not recognized
-                totalSalary = baseSalary;
-                paymentBasedSalary = BigDecimal.ZERO;
-        }
+        SalaryAmounts salary = salaryFor(teacher.getSalaryType(), baseSalary, teacher.getPaymentPercentage(),
+                totalStudentPayments.toBigDecimal());
+        BigDecimal paymentBasedSalary = salary.paymentBasedSalary();
+        BigDecimal totalSalary = salary.totalSalary();
 
         // Get already paid amount for this teacher in this month
         BigDecimal alreadyPaid = salaryPaymentRepository.sumByTeacherAndYearAndMonth(teacherId, year, month);
@@ -137,7 +117,7 @@ public class TeacherSalaryService {
         dto.setBaseSalary(baseSalary);
         dto.setPaymentBasedSalary(paymentBasedSalary);
         dto.setTotalSalary(totalSalary);
-        dto.setTotalStudentPayments(totalStudentPayments);
+        dto.setTotalStudentPayments(totalStudentPayments.toBigDecimal());
         dto.setTotalStudents(totalPaidStudents);
         dto.setAlreadyPaid(alreadyPaid);
         dto.setRemainingAmount(remainingAmount);
@@ -150,9 +130,48 @@ public class TeacherSalaryService {
         return dto;
     }
 
-    // Calculate salaries for all teachers in a branch
-    @Transactional(readOnly = true)
+    // Salary rule by salary type; pure so it can be benchmarked and reused
+    static SalaryAmounts salaryFor(SalaryType salaryType, BigDecimal baseSalary, BigDecimal paymentPercentage,
+                                   BigDecimal totalStudentPayments) {
+        BigDecimal paymentBasedSalary = BigDecimal.ZERO;
+
+        switch (salaryType) {
+            case PERCENTAGE:
+                // Salary is percentage of total student payments
+                if (paymentPercentage != null) {
+                    paymentBasedSalary = totalStudentPayments
+                            .multiply(paymentPercentage)
+                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                }
+                return new SalaryAmounts(paymentBasedSalary, paymentBasedSalary);
+
+            case MIXED:
+                // Combination of base salary + percentage of payments
+                if (paymentPercentage != null) {
+                    paymentBasedSalary = totalStudentPayments
+                            .multiply(paymentPercentage)
+                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                }
+                return new SalaryAmounts(paymentBasedSalary, baseSalary.add(paymentBasedSalary));
+
+            case FIXED:
+            default:
+                // Fixed salary regardless of student payments
+                return new SalaryAmounts(BigDecimal.ZERO, baseSalary);
+        }
+    }
+
+    record SalaryAmounts(BigDecimal paymentBasedSalary, BigDecimal totalSalary) {
+    }
+
+    // Calculate salaries for all teachers in a branch; identical concurrent requests share one run
     public List<SalaryCalculationDto> calculateSalariesForBranch(Long branchId, int year, int month) {
+        return singleFlightService.execute("branch-salaries",
+                List.of(branchId, dataVersionService.branchVersion(branchId), year, month),
+                () -> loadSalariesForBranch(branchId, year, month));
+    }
+
+    private List<SalaryCalculationDto> loadSalariesForBranch(Long branchId, int year, int month) {
         List<Teacher> teachers = teacherRepository.findByBranchIdWithBranch(branchId);
 
         return teachers.stream()
@@ -164,7 +183,7 @@ public class TeacherSalaryService {
     @Transactional
     public TeacherSalaryPaymentDto createSalaryPayment(CreateSalaryPaymentRequest request) {
         // Validate teacher exists
-        Teacher teacher = teacherRepository.findByIdWithBranch(request.getTeacherId())
+        Teacher teacher = teacherRepository.findById(request.getTeacherId())
                 .orElseThrow(() -> new RuntimeException("Teacher not found with id: " + request.getTeacherId()));
 
         // Validate branch exists
@@ -196,7 +215,11 @@ public class TeacherSalaryService {
         payment.setBranch(branch);
 
         TeacherSalaryPayment savedPayment = salaryPaymentRepository.save(payment);
-        return convertPaymentToDto(savedPayment);
+        ledgerVersionService.recordWrite(branch.getId(), null, YearMonth.of(request.getYear(), request.getMonth()));
+
+        TeacherSalaryPaymentDto dto = convertPaymentToDto(savedPayment);
+        eventPublisher.publishEvent(BranchEvent.of(BranchEventType.SALARY_PAID, branch.getId(), dto.getId(), dto));
+        return dto;
     }
 
     // Get all salary payments for a branch
@@ -285,10 +308,11 @@ public class TeacherSalaryService {
     // Delete salary payment
     @Transactional
     public void deleteSalaryPayment(Long paymentId) {
-        if (!salaryPaymentRepository.existsById(paymentId)) {
-            throw new RuntimeException("Salary payment not found with id: " + paymentId);
-        }
-        salaryPaymentRepository.deleteById(paymentId);
+        TeacherSalaryPayment payment = salaryPaymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Salary payment not found with id: " + paymentId));
+        salaryPaymentRepository.delete(payment);
+        ledgerVersionService.recordWrite(payment.getBranch().getId(), payment.getCreatedAt(),
+                YearMonth.of(payment.getYear(), payment.getMonth()));
     }
 
     // Convert salary payment entity to DTO
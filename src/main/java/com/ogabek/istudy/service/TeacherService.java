@@ -1,5 +1,7 @@
 package com.ogabek.istudy.service;
 
+import com.ogabek.istudy.config.CacheConfig;
+import com.ogabek.istudy.dto.projection.TeacherRow;
 import com.ogabek.istudy.dto.request.CreateTeacherRequest;
 import com.ogabek.istudy.dto.response.TeacherDto;
 import com.ogabek.istudy.entity.Branch;
@@ -10,6 +12,9 @@ import com.ogabek.istudy.repository.BranchRepository;
 import com.ogabek.istudy.repository.GroupRepository;
 import com.ogabek.istudy.repository.TeacherRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +28,11 @@ public class TeacherService {
     private final BranchRepository branchRepository;
     private final GroupRepository groupRepository;
 
+    @Cacheable(cacheNames = CacheConfig.BRANCH_TEACHERS, key = "#branchId")
     @Transactional(readOnly = true)
     public List<TeacherDto> getTeachersByBranch(Long branchId) {
-        return teacherRepository.findByBranchIdWithBranch(branchId).stream()
-                .map(this::convertToDto)
+        return teacherRepository.findRowsByBranchId(branchId).stream()
+                .map(TeacherRow::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -46,6 +52,7 @@ public class TeacherService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.TEACHERS, key = "#id")
     @Transactional(readOnly = true)
     public TeacherDto getTeacherById(Long id) {
         Teacher teacher = teacherRepository.findByIdWithBranch(id)
@@ -53,6 +60,7 @@ public class TeacherService {
         return convertToDto(teacher);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BRANCH_TEACHERS, key = "#request.branchId")
     @Transactional
     public TeacherDto createTeacher(CreateTeacherRequest request) {
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -71,9 +79,14 @@ public class TeacherService {
         return convertToDto(savedTeacher);
     }
 
+    // Teacher names also appear in the groups embedded in course DTOs
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.TEACHERS, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.BRANCH_TEACHERS, CacheConfig.COURSES, CacheConfig.BRANCH_COURSES}, allEntries = true)
+    })
     @Transactional
     public TeacherDto updateTeacher(Long id, CreateTeacherRequest request) {
-        Teacher teacher = teacherRepository.findByIdWithBranch(id)
+        Teacher teacher = teacherRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Teacher not found with id: " + id));
 
         Branch branch = branchRepository.findById(request.getBranchId())
@@ -91,6 +104,10 @@ public class TeacherService {
         return convertToDto(savedTeacher);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.TEACHERS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.BRANCH_TEACHERS, allEntries = true)
+    })
     @Transactional
     public void deleteTeacher(Long id) {
         Teacher teacher = teacherRepository.findById(id)
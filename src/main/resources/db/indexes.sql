@@ -0,0 +1,12 @@
+-- Indexes Hibernate's ddl-auto=update cannot express.
+
+-- Keyset pagination of a branch's payments, newest first
+CREATE INDEX IF NOT EXISTS idx_payments_branch_created_id ON payments (branch_id, created_at DESC, id DESC);
+
+-- Substring search on student full name (same expression as PaymentRepository.searchPageIdsByStudentName)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_students_full_name_trgm
+    ON students USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+
+-- Idempotency keys are unique per scope (user and branch) since ux_idempotency_keys_scope_key; the old global index goes
+DROP INDEX IF EXISTS ux_idempotency_keys_key;
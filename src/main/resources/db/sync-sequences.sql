@@ -0,0 +1,48 @@
+-- Moves every entity sequence past the ids already stored in its table.
+-- Rows created while the entities used IDENTITY keep their ids; the sequence is only
+-- advanced when it is behind, so restarts (and other running instances) are unaffected.
+-- Sequences use pooled-lo with an allocation size of 50, hence the +50 step.
+
+SELECT setval('branches_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM branches) m, branches_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('users_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM users) m, users_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('refresh_tokens_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM refresh_tokens) m, refresh_tokens_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('courses_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM courses) m, courses_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('teachers_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM teachers) m, teachers_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('students_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM students) m, students_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('groups_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM groups) m, groups_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('payments_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM payments) m, payments_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('expenses_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM expenses) m, expenses_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('teacher_salary_calculations_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM teacher_salary_calculations) m, teacher_salary_calculations_seq s
+WHERE m.max_id >= s.last_value;
+
+SELECT setval('teacher_salary_payments_seq', GREATEST(m.max_id + 1, s.last_value + 50), false)
+FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM teacher_salary_payments) m, teacher_salary_payments_seq s
+WHERE m.max_id >= s.last_value;
@@ -0,0 +1,57 @@
+package com.ogabek.istudy.perf;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and outcomes of one endpoint during the measured part of a load test run.
+ * Every sample is kept, so percentiles are exact; a run records at most a few hundred thousand.
+ */
+class EndpointStats {
+    private final String endpoint;
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+    private int errors;
+    private long sqlStatements;
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    // sqlStatements comes from the X-SQL-Statements response header (0 when absent)
+    synchronized void record(long latencyNanos, boolean success, int sqlStatements) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+        this.sqlStatements += sqlStatements;
+    }
+
+    synchronized Summary summarize(double durationSeconds) {
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        return new Summary(endpoint, count, errors, count / durationSeconds,
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                count > 0 ? sorted[count - 1] / 1_000_000.0 : 0,
+                count > 0 ? (double) sqlStatements / count : 0);
+    }
+
+    // Nearest-rank percentile
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1_000_000.0;
+    }
+
+    record Summary(String endpoint, int requests, int errors, double throughputPerSecond,
+                   double p50Ms, double p95Ms, double p99Ms, double maxMs, double sqlStatementsPerRequest) {
+
+        double errorRate() {
+            return requests > 0 ? (double) errors / requests : 0;
+        }
+    }
+}
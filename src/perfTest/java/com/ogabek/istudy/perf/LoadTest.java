@@ -0,0 +1,409 @@
+package com.ogabek.istudy.perf;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mixed workload through the real HTTP API of a fully started application and gates the
+ * result on per-endpoint p99 latency SLOs (application-perf.properties). Run with {@code ./gradlew perfTest}.
+ * The branch, group and student ids come from the synthetic data set; payments created by the run
+ * are removed afterwards so repeated runs measure the same data.
+ * A second scenario measures payment insert throughput on its own.
+ * The mixed run is reported per request thread mode; run it once with VIRTUAL_THREADS_ENABLED=true and
+ * once without, and the second run logs throughput and p99 next to the first.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"perf", "synthetic"})
+class LoadTest {
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+    private static final String PAYMENT_DESCRIPTION = "perf-test";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedWorkloadMeetsLatencySlos() throws Exception {
+        Fixture fixture = loadFixture();
+        String token = login();
+        List<Operation> operations = operations(fixture, token);
+
+        int concurrency = environment.getProperty("perf.concurrency", Integer.class, 16);
+        long warmupNanos = Duration.ofSeconds(environment.getProperty("perf.warmup-seconds", Long.class, 15L)).toNanos();
+        long durationNanos = Duration.ofSeconds(environment.getProperty("perf.duration-seconds", Long.class, 60L)).toNanos();
+        long seed = environment.getProperty("perf.seed", Long.class, 7L);
+
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        operations.forEach(operation -> stats.put(operation.name, new EndpointStats(operation.name)));
+
+        long measureFrom = System.nanoTime() + warmupNanos;
+        long measureUntil = measureFrom + durationNanos;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                Random random = new Random(seed + worker);
+                workers.submit(() -> runWorker(operations, stats, random, measureFrom, measureUntil));
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM payments WHERE description = ?", PAYMENT_DESCRIPTION);
+        }
+
+        double seconds = durationNanos / 1_000_000_000.0;
+        List<EndpointStats.Summary> summaries = stats.values().stream().map(s -> s.summarize(seconds)).toList();
+        String threads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false) ? "virtual" : "platform";
+        report("summary-" + threads + "-threads.json", summaries);
+        compareWithOtherThreadMode(threads, summaries);
+        assertThat(sloViolations(summaries)).as("SLO violations").isEmpty();
+    }
+
+    // Side-by-side table against the last run in the other thread mode, when there is one
+    private void compareWithOtherThreadMode(String threads, List<EndpointStats.Summary> summaries) throws IOException {
+        String other = threads.equals("virtual") ? "platform" : "virtual";
+        Path otherReport = reportDir().resolve("summary-" + other + "-threads.json");
+        if (!Files.exists(otherReport)) {
+            log.info("No {}-thread run in {} to compare with", other, otherReport.getParent());
+            return;
+        }
+        Map<String, EndpointStats.Summary> previous = new LinkedHashMap<>();
+        for (EndpointStats.Summary summary : objectMapper.readValue(otherReport.toFile(), EndpointStats.Summary[].class)) {
+            previous.put(summary.endpoint(), summary);
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%n%-18s %12s %12s %12s %12s%n", "endpoint",
+                other + " req/s", threads + " req/s", other + " p99", threads + " p99"));
+        for (EndpointStats.Summary s : summaries) {
+            EndpointStats.Summary p = previous.get(s.endpoint());
+            if (p != null) {
+                table.append(String.format("%-18s %12.1f %12.1f %12.1f %12.1f%n", s.endpoint(),
+                        p.throughputPerSecond(), s.throughputPerSecond(), p.p99Ms(), s.p99Ms()));
+            }
+        }
+        log.info("Platform vs virtual request threads:{}", table);
+    }
+
+    /**
+     * Payment insert throughput: single creates, then batches of {@code perf.insert.batch-rows} rows,
+     * each phase measured on its own. Reports rows/s, latency and SQL statements per row (a JDBC batch
+     * counts once) to insert-throughput-batch-size-N.json, N being hibernate.jdbc.batch_size.
+     * Run it again with JDBC_BATCH_SIZE=1 for the unbatched numbers. That run is also the nearest
+     * stand-in for the former IDENTITY ids, which forced one round trip per INSERT; the id generator
+     * itself is part of the mapping and cannot be switched at runtime.
+     */
+    @Test
+    void paymentInsertThroughput() throws Exception {
+        Fixture fixture = loadFixture();
+        String token = login();
+        YearMonth period = fixture.period;
+        int batchRows = environment.getProperty("perf.insert.batch-rows", Integer.class, 20);
+        Map<Long, List<Membership>> membershipsByBranch = fixture.memberships.stream()
+                .collect(Collectors.groupingBy(Membership::branchId));
+
+        Operation single = new Operation("payment-create", 1, (random, base) ->
+                post(base.resolve("/api/payments"), token, paymentBody(pick(fixture.memberships, random), period)));
+        Operation batch = new Operation("payment-batch", 1, (random, base) -> {
+            // A batch must stay within one branch
+            long branchId = pick(fixture.branchIds, random);
+            List<Membership> memberships = membershipsByBranch.get(branchId);
+            List<Map<String, Object>> payments = new ArrayList<>(batchRows);
+            for (int i = 0; i < batchRows; i++) {
+                payments.add(paymentBody(pick(memberships, random), period));
+            }
+            return post(base.resolve("/api/payments/batch"), token, Map.of("branchId", branchId, "payments", payments));
+        });
+
+        List<InsertResult> results = new ArrayList<>();
+        try {
+            results.add(new InsertResult(runInsertPhase(single), 1));
+            results.add(new InsertResult(runInsertPhase(batch), batchRows));
+        } finally {
+            jdbcTemplate.update("DELETE FROM payments WHERE description = ?", PAYMENT_DESCRIPTION);
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%n%-18s %9s %9s %9s %9s %14s%n",
+                "phase", "requests", "rows/s", "p50 ms", "p99 ms", "statements/row"));
+        for (InsertResult result : results) {
+            EndpointStats.Summary s = result.summary();
+            table.append(String.format("%-18s %9d %9.1f %9.1f %9.1f %14.2f%n", s.endpoint(), s.requests(),
+                    result.rowsPerSecond(), s.p50Ms(), s.p99Ms(), result.statementsPerRow()));
+        }
+        String batchSize = environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", "1");
+        log.info("Payment inserts with hibernate.jdbc.batch_size={}:{}", batchSize, table);
+        writeReport("insert-throughput-batch-size-" + batchSize + ".json", results);
+
+        double maxErrorRate = environment.getProperty("perf.slo.max-error-rate", Double.class, 0.01);
+        assertThat(results).allSatisfy(result -> assertThat(result.summary().errorRate())
+                .as(result.summary().endpoint() + " error rate").isLessThanOrEqualTo(maxErrorRate));
+        // Statement gates keep the lean write path from regressing (see application-perf.properties)
+        assertThat(results).allSatisfy(result -> {
+            Double maxStatements = environment.getProperty(
+                    "perf.insert.max-statements-per-row." + result.summary().endpoint(), Double.class);
+            if (maxStatements != null) {
+                assertThat(result.statementsPerRow()).as(result.summary().endpoint() + " statements per row")
+                        .isLessThanOrEqualTo(maxStatements);
+            }
+        });
+    }
+
+    private EndpointStats.Summary runInsertPhase(Operation operation) {
+        int concurrency = environment.getProperty("perf.concurrency", Integer.class, 16);
+        long warmupNanos = Duration.ofSeconds(environment.getProperty("perf.insert.warmup-seconds", Long.class, 5L)).toNanos();
+        long durationNanos = Duration.ofSeconds(environment.getProperty("perf.insert.duration-seconds", Long.class, 20L)).toNanos();
+        long seed = environment.getProperty("perf.seed", Long.class, 7L);
+
+        Map<String, EndpointStats> stats = Map.of(operation.name, new EndpointStats(operation.name));
+        long measureFrom = System.nanoTime() + warmupNanos;
+        long measureUntil = measureFrom + durationNanos;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                Random random = new Random(seed + worker);
+                workers.submit(() -> runWorker(List.of(operation), stats, random, measureFrom, measureUntil));
+            }
+        }
+        return stats.get(operation.name).summarize(durationNanos / 1_000_000_000.0);
+    }
+
+    private void runWorker(List<Operation> operations, Map<String, EndpointStats> stats, Random random,
+                           long measureFrom, long measureUntil) {
+        int totalWeight = operations.stream().mapToInt(operation -> operation.weight).sum();
+        while (System.nanoTime() < measureUntil) {
+            Operation operation = pick(operations, random.nextInt(totalWeight));
+            HttpRequest request = operation.request.apply(random, URI.create("http://localhost:" + port));
+
+            long started = System.nanoTime();
+            boolean success;
+            int sqlStatements = 0;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() >= 200 && response.statusCode() < 300;
+                sqlStatements = response.headers().firstValue("X-SQL-Statements").map(Integer::parseInt).orElse(0);
+            } catch (IOException e) {
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - started;
+
+            // Warm-up requests (JIT, connection pools, caches) are not measured
+            if (started >= measureFrom && started < measureUntil) {
+                stats.get(operation.name).record(latency, success, sqlStatements);
+            }
+        }
+    }
+
+    private List<Operation> operations(Fixture fixture, String token) {
+        YearMonth period = fixture.period;
+        List<Operation> operations = new ArrayList<>();
+
+        operations.add(operation("login", (random, base) -> post(base.resolve("/api/auth/login"), null,
+                Map.of("username", "superadmin", "password", "admin123"))));
+        operations.add(operation("student-list", (random, base) -> get(base.resolve(String.format(
+                "/api/students?branchId=%d&year=%d&month=%d",
+                pick(fixture.branchIds, random), period.getYear(), period.getMonthValue())), token)));
+        operations.add(operation("group-detail", (random, base) -> get(base.resolve(String.format(
+                "/api/groups/%d?year=%d&month=%d",
+                pick(fixture.groupIds, random), period.getYear(), period.getMonthValue())), token)));
+        operations.add(operation("payment-create", (random, base) ->
+                post(base.resolve("/api/payments"), token, paymentBody(pick(fixture.memberships, random), period))));
+        operations.add(operation("payment-report", (random, base) -> get(base.resolve(String.format(
+                "/api/reports/payments/monthly?branchId=%d&year=%d&month=%d",
+                pick(fixture.branchIds, random), period.getYear(), period.getMonthValue())), token)));
+        operations.add(operation("financial-summary", (random, base) -> get(base.resolve(String.format(
+                "/api/reports/financial/summary?branchId=%d&year=%d&month=%d",
+                pick(fixture.branchIds, random), period.getYear(), period.getMonthValue())), token)));
+        operations.add(operation("branch-salary", (random, base) -> get(base.resolve(String.format(
+                "/api/teacher-salaries/calculate/branch/%d?year=%d&month=%d",
+                pick(fixture.branchIds, random), period.getYear(), period.getMonthValue())), token)));
+
+        return operations.stream().filter(operation -> operation.weight > 0).toList();
+    }
+
+    private static Map<String, Object> paymentBody(Membership membership, YearMonth period) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("studentId", membership.studentId);
+        body.put("groupId", membership.groupId);
+        body.put("branchId", membership.branchId);
+        body.put("amount", 1000);
+        body.put("description", PAYMENT_DESCRIPTION);
+        body.put("paymentYear", period.getYear());
+        body.put("paymentMonth", period.getMonthValue());
+        return body;
+    }
+
+    private Operation operation(String name, BiFunction<Random, URI, HttpRequest> request) {
+        return new Operation(name, environment.getProperty("perf.weight." + name, Integer.class, 1), request);
+    }
+
+    private Fixture loadFixture() {
+        String endMonth = environment.getProperty("app.synthetic.end-month", "");
+        YearMonth period = endMonth.isBlank() ? YearMonth.now() : YearMonth.parse(endMonth);
+
+        List<Long> branchIds = jdbcTemplate.queryForList(
+                "SELECT id FROM branches WHERE name LIKE 'Filial %' ORDER BY id", Long.class);
+        assertThat(branchIds).as("synthetic branches (run with an empty database first)").isNotEmpty();
+
+        List<Long> groupIds = jdbcTemplate.queryForList("""
+                SELECT g.id FROM groups g JOIN branches b ON b.id = g.branch_id
+                WHERE b.name LIKE 'Filial %' ORDER BY g.id""", Long.class);
+        List<Membership> memberships = jdbcTemplate.query("""
+                SELECT gs.student_id, gs.group_id, g.branch_id
+                FROM group_students gs
+                JOIN groups g ON g.id = gs.group_id
+                JOIN branches b ON b.id = g.branch_id
+                WHERE b.name LIKE 'Filial %'
+                ORDER BY gs.group_id, gs.student_id""",
+                (rs, rowNum) -> new Membership(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+
+        return new Fixture(period, branchIds, groupIds, memberships);
+    }
+
+    private String login() throws IOException, InterruptedException {
+        HttpRequest request = post(URI.create("http://localhost:" + port + "/api/auth/login"), null,
+                Map.of("username", "superadmin", "password", "admin123"));
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("login").isEqualTo(200);
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private HttpRequest get(URI uri, String token) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(URI uri, String token, Object body) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> sloViolations(List<EndpointStats.Summary> summaries) {
+        double maxErrorRate = environment.getProperty("perf.slo.max-error-rate", Double.class, 0.01);
+        List<String> violations = new ArrayList<>();
+        for (EndpointStats.Summary summary : summaries) {
+            Double p99Slo = environment.getProperty("perf.slo.p99-ms." + summary.endpoint(), Double.class);
+            if (summary.requests() == 0) {
+                violations.add(summary.endpoint() + ": no requests completed");
+                continue;
+            }
+            if (p99Slo != null && summary.p99Ms() > p99Slo) {
+                violations.add(String.format("%s: p99 %.1f ms > %.0f ms", summary.endpoint(), summary.p99Ms(), p99Slo));
+            }
+            if (summary.errorRate() > maxErrorRate) {
+                violations.add(String.format("%s: error rate %.2f%% > %.2f%%", summary.endpoint(),
+                        summary.errorRate() * 100, maxErrorRate * 100));
+            }
+        }
+        return violations;
+    }
+
+    private void report(String fileName, List<EndpointStats.Summary> summaries) throws IOException {
+        StringBuilder table = new StringBuilder(String.format("%n%-18s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (EndpointStats.Summary s : summaries) {
+            table.append(String.format("%-18s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", s.endpoint(), s.requests(),
+                    s.errors(), s.throughputPerSecond(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        }
+        log.info("Load test results:{}", table);
+        writeReport(fileName, summaries);
+    }
+
+    private void writeReport(String fileName, Object results) throws IOException {
+        Path reportDir = reportDir();
+        Files.createDirectories(reportDir);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportDir.resolve(fileName).toFile(), results);
+    }
+
+    private Path reportDir() {
+        return Path.of(environment.getProperty("perf.report-dir", "build/reports/perf"));
+    }
+
+    private static Operation pick(List<Operation> operations, int ticket) {
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private record Operation(String name, int weight, BiFunction<Random, URI, HttpRequest> request) {
+    }
+
+    private record Membership(long studentId, long groupId, long branchId) {
+    }
+
+    private record InsertResult(EndpointStats.Summary summary, int rowsPerRequest) {
+
+        @JsonProperty
+        double rowsPerSecond() {
+            return summary.throughputPerSecond() * rowsPerRequest;
+        }
+
+        @JsonProperty
+        double statementsPerRow() {
+            return summary.sqlStatementsPerRequest() / rowsPerRequest;
+        }
+    }
+
+    private record Fixture(YearMonth period, List<Long> branchIds, List<Long> groupIds, List<Membership> memberships) {
+    }
+}
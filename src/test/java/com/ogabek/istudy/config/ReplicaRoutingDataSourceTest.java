@@ -0,0 +1,213 @@
+package com.ogabek.istudy.config;
+
+import com.ogabek.istudy.service.DataVersionService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    private static final Duration STICKINESS = Duration.ofSeconds(10);
+
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final DataVersionService dataVersionService = new DataVersionService();
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void createRouting() {
+        // Pools connect lazily, so none of these ever opens a connection
+        routing = new ReplicaRoutingDataSource(pool("primary-pool"), List.of(pool("replica-1"), pool("replica-2")),
+                MAX_LAG, STICKINESS, dataVersionService, clock, new SimpleMeterRegistry());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writesGoToPrimary() {
+        healthy("replica-1", "replica-2");
+
+        assertThat(lookup(false)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readsUsePrimaryUntilALagCheckSucceeds() {
+        assertThat(lookup(true)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void readsRoundRobinOverHealthyReplicas() {
+        healthy("replica-1", "replica-2");
+
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(lookup(true));
+        }
+
+        assertThat(keys).containsExactly("replica-1", "replica-2", "replica-1", "replica-2");
+    }
+
+    @Test
+    void laggingOrDetachedReplicasLeaveRotation() {
+        healthy("replica-1", "replica-2");
+        routing.recordLag("replica-1", MAX_LAG.toMillis() + 1);
+
+        assertThat(lookup(true)).isEqualTo("replica-2");
+        assertThat(lookup(true)).isEqualTo("replica-2");
+
+        routing.recordLag("replica-2", ReplicaRoutingDataSource.UNAVAILABLE);
+        assertThat(lookup(true)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        routing.recordLag("replica-1", 0);
+        assertThat(lookup(true)).isEqualTo("replica-1");
+    }
+
+    @Test
+    void writerReadsFromPrimaryForTheStickinessWindow() {
+        healthy("replica-1", "replica-2");
+        actAs("kassir");
+        lookup(false);
+
+        assertThat(lookup(true)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        // Other users are not affected by the write
+        actAs("admin");
+        assertThat(lookup(true)).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        actAs("kassir");
+        clock.advance(STICKINESS);
+        assertThat(lookup(true)).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void versionPinnedReadsOfARecentlyWrittenBranchUsePrimary() {
+        healthy("replica-1", "replica-2");
+        dataVersionService.recordWrite(1L);
+
+        dataVersionService.pinRead(2L);
+        assertThat(lookup(true)).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        dataVersionService.pinRead(1L);
+        assertThat(lookup(true)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        clock.advance(STICKINESS.plusSeconds(1));
+        assertThat(lookup(true)).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void allBranchReadsFollowWritesOfAnyBranch() {
+        healthy("replica-1", "replica-2");
+        dataVersionService.recordWrite(3L);
+
+        dataVersionService.pinRead(null);
+
+        assertThat(lookup(true)).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void lagQueryResultIsReadInMilliseconds() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(1.5);
+        when(resultSet.wasNull()).thenReturn(false);
+
+        assertThat(ReplicaRoutingDataSource.lagMillis(resultSet)).isEqualTo(1500L);
+    }
+
+    @Test
+    void nullLagMeansNoWalReceiver() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(0.0);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        assertThat(ReplicaRoutingDataSource.lagMillis(resultSet)).isEqualTo(ReplicaRoutingDataSource.UNAVAILABLE);
+    }
+
+    @Test
+    void emptyLagResultIsUnavailable() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(false);
+
+        assertThat(ReplicaRoutingDataSource.lagMillis(resultSet)).isEqualTo(ReplicaRoutingDataSource.UNAVAILABLE);
+    }
+
+    private Object lookup(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return routing.determineCurrentLookupKey();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private void healthy(String... replicaNames) {
+        for (String replicaName : replicaNames) {
+            routing.recordLag(replicaName, 0);
+        }
+    }
+
+    private static void actAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_ADMIN"));
+    }
+
+    private static HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        return pool;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
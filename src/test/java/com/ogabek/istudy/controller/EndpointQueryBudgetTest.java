@@ -0,0 +1,154 @@
+package com.ogabek.istudy.controller;
+
+import com.ogabek.istudy.entity.*;
+import com.ogabek.istudy.repository.*;
+import com.ogabek.istudy.support.QueryBudget;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets of the branch-wide read endpoints. The fixture has enough students that a
+ * per-student query (N+1) blows the budget. Runs against the Postgres in DATABASE_URL; each run
+ * adds its own branch, so it can share a database with other data.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@WithMockUser(username = "superadmin", roles = "SUPER_ADMIN")
+class EndpointQueryBudgetTest {
+    private static final int STUDENTS_PER_GROUP = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BranchRepository branchRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private TeacherRepository teacherRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private Branch branch;
+    private Teacher teacher;
+    private Group group;
+
+    @BeforeAll
+    void createFixture() {
+        branch = new Branch();
+        branch.setName("Query budget " + System.nanoTime());
+        branch.setAddress("Test");
+        branch = branchRepository.save(branch);
+
+        Course course = new Course();
+        course.setName("Ingliz tili");
+        course.setPrice(new BigDecimal("500000.00"));
+        course.setDurationMonths(6);
+        course.setBranch(branch);
+        course = courseRepository.save(course);
+
+        teacher = new Teacher();
+        teacher.setFirstName("Aziz");
+        teacher.setLastName("Karimov");
+        teacher.setSalaryType(SalaryType.PERCENTAGE);
+        teacher.setPaymentPercentage(new BigDecimal("40"));
+        teacher.setBranch(branch);
+        teacher = teacherRepository.save(teacher);
+
+        // Two groups of the same teacher; every other student has paid part of this month
+        for (int g = 0; g < 2; g++) {
+            List<Student> students = new ArrayList<>();
+            for (int s = 0; s < STUDENTS_PER_GROUP; s++) {
+                Student student = new Student();
+                student.setFirstName("Talaba" + s);
+                student.setLastName("Guruh" + g);
+                student.setPhoneNumber("+99890000" + g + String.format("%02d", s));
+                student.setBranch(branch);
+                students.add(studentRepository.save(student));
+            }
+
+            Group saved = new Group();
+            saved.setName("Guruh " + g);
+            saved.setCourse(course);
+            saved.setTeacher(teacher);
+            saved.setBranch(branch);
+            saved.setStudents(new HashSet<>(students));
+            saved = groupRepository.save(saved);
+            if (group == null) {
+                group = saved;
+            }
+
+            for (int s = 0; s < students.size(); s += 2) {
+                Payment payment = new Payment();
+                payment.setStudent(students.get(s));
+                payment.setCourse(course);
+                payment.setGroup(saved);
+                payment.setBranch(branch);
+                payment.setAmount(new BigDecimal("250000.00"));
+                payment.setPaymentYear(today.getYear());
+                payment.setPaymentMonth(today.getMonthValue());
+                paymentRepository.save(payment);
+            }
+        }
+    }
+
+    // User lookup for the access check, then students, memberships and payment summaries
+    @Test
+    @QueryBudget(6)
+    void studentList() throws Exception {
+        mockMvc.perform(get("/api/students").param("branchId", branch.getId().toString()))
+                .andExpect(status().isOk());
+    }
+
+    // The group with its students, one grouped payment query, then the access check
+    @Test
+    @QueryBudget(5)
+    void groupDetail() throws Exception {
+        mockMvc.perform(get("/api/groups/{id}", group.getId())
+                        .param("year", String.valueOf(today.getYear()))
+                        .param("month", String.valueOf(today.getMonthValue())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(6)
+    void unpaidStudents() throws Exception {
+        mockMvc.perform(get("/api/students/unpaid")
+                        .param("branchId", branch.getId().toString())
+                        .param("year", String.valueOf(today.getYear()))
+                        .param("month", String.valueOf(today.getMonthValue())))
+                .andExpect(status().isOk());
+    }
+
+    // Teacher, groups with students, one grouped payment query, salary already paid, access check
+    @Test
+    @QueryBudget(7)
+    void teacherSalary() throws Exception {
+        mockMvc.perform(get("/api/teacher-salaries/calculate/teacher/{id}", teacher.getId())
+                        .param("year", String.valueOf(today.getYear()))
+                        .param("month", String.valueOf(today.getMonthValue())))
+                .andExpect(status().isOk());
+    }
+}
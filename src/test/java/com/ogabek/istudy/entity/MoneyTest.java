@@ -0,0 +1,77 @@
+package com.ogabek.istudy.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void convertsColumnAmountsToTiyin() {
+        assertThat(Money.of(new BigDecimal("500000.00")).minorUnits()).isEqualTo(50_000_000L);
+        assertThat(Money.of(new BigDecimal("12.5")).minorUnits()).isEqualTo(1250L);
+        assertThat(Money.of(new BigDecimal("7")).minorUnits()).isEqualTo(700L);
+    }
+
+    @Test
+    void rejectsMoreThanTwoDecimalPlaces() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10.005")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    // Trailing zeros are not extra precision
+    @Test
+    void acceptsTrailingZerosBeyondTwoDecimalPlaces() {
+        assertThat(Money.of(new BigDecimal("10.500")).minorUnits()).isEqualTo(1050L);
+    }
+
+    @Test
+    void keepsNegativeAmounts() {
+        Money refund = Money.of(new BigDecimal("-12.34"));
+
+        assertThat(refund.minorUnits()).isEqualTo(-1234L);
+        assertThat(refund.isPositive()).isFalse();
+        assertThat(refund.positiveOrZero()).isEqualTo(Money.ZERO);
+        assertThat(refund.toBigDecimal()).isEqualTo(new BigDecimal("-12.34"));
+        assertThat(Money.of(new BigDecimal("5.00")).minus(Money.of(new BigDecimal("7.50"))).minorUnits())
+                .isEqualTo(-250L);
+    }
+
+    @Test
+    void rejectsAmountsBeyondLongRange() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void plusFailsOnOverflow() {
+        Money max = new Money(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(new Money(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void minusFailsOnOverflow() {
+        Money min = new Money(Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> min.minus(new Money(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void nullSumIsZero() {
+        assertThat(Money.ofNullable(null)).isEqualTo(Money.ZERO);
+    }
+
+    // Same JSON as the BigDecimal code it replaced: "0" for nothing, column scale otherwise
+    @Test
+    void rendersZeroWithoutScaleAndOtherAmountsWithTwoDecimals() {
+        assertThat(Money.ZERO.toBigDecimal().toPlainString()).isEqualTo("0");
+        assertThat(Money.of(new BigDecimal("0.00")).toBigDecimal().toPlainString()).isEqualTo("0");
+        assertThat(new Money(50_000_000L).toBigDecimal().toPlainString()).isEqualTo("500000.00");
+    }
+}
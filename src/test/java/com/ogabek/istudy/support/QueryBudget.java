@@ -0,0 +1,26 @@
+package com.ogabek.istudy.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when it executes more SQL statements than {@link #value()}.
+ * Use on MockMvc tests of an endpoint so an N+1 regression fails the build:
+ * <pre>
+ * &#64;Test
+ * &#64;QueryBudget(6)
+ * void studentsOfBranch() throws Exception {
+ *     mockMvc.perform(get("/api/students").param("branchId", "1")).andExpect(status().isOk());
+ * }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+    int value();
+}
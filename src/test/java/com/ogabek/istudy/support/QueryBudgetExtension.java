@@ -0,0 +1,37 @@
+package com.ogabek.istudy.support;
+
+import com.ogabek.istudy.metrics.SqlStatistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+// Opens a SqlStatistics scope around the body of a @QueryBudget test (fixtures set up in @BeforeEach
+// are not counted); MockMvc requests run on the test thread
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budget(context) != null) {
+            SqlStatistics.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = budget(context);
+        if (budget == null) {
+            return;
+        }
+        SqlStatistics statistics = SqlStatistics.stop();
+        if (statistics != null && statistics.getStatements() > budget.value()) {
+            throw new AssertionError("Query budget of " + budget.value() + " exceeded: " + statistics.summary());
+        }
+    }
+
+    private static QueryBudget budget(ExtensionContext context) {
+        return context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, QueryBudget.class))
+                .orElse(null);
+    }
+}